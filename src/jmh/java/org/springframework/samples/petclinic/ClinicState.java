@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.samples.petclinic.system.SampleData;
+
+/**
+ * Benchmark state holding a running (non-web) PetClinic application on the embedded HSQLDB,
+ * seeded with {@link SampleData#createLotsOfData()} on top of the regular sample data.
+ * <p/>
+ * The {@code profile} parameter selects the active Spring profile: {@code production} runs with
+ * the caches from {@code CacheConfig}, {@code nocache} without them.
+ */
+@State(Scope.Benchmark)
+public class ClinicState {
+
+    @Param({ "production", "nocache" })
+    private String profile;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .web(false)
+            .run("--spring.profiles.active=" + this.profile, "--logging.level.root=WARN");
+        this.context.getBean(SampleData.class).createLotsOfData();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        this.context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return this.context.getBean(type);
+    }
+
+}
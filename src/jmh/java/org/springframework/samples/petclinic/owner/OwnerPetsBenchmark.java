@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.samples.petclinic.visit.Visit;
+
+/**
+ * {@link Owner#getPets()} and {@link Pet#getVisits()}, which hand out pets sorted by name and
+ * visits sorted by date, for owners with a growing number of pets with ten visits each. The
+ * {@code renderOwner} benchmarks walk all pets and visits the way the owner details page does,
+ * once through the accessors and once copying and sorting with {@link PropertyComparator} on
+ * every call, as the accessors used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnerPetsBenchmark {
+
+    private static final int VISITS_PER_PET = 10;
+
+    @Param({ "1", "10", "100" })
+    private int petCount;
+
+    private Owner owner;
+
+    @Setup
+    public void setup() {
+        this.owner = new Owner();
+        long day = TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < this.petCount; i++) {
+            Pet pet = new Pet();
+            pet.setName("pet" + ((i * 7919) % this.petCount));
+            for (int v = 0; v < VISITS_PER_PET; v++) {
+                Visit visit = new Visit();
+                visit.setDate(new Date(((v * 7 + i) % VISITS_PER_PET) * day));
+                pet.addVisit(visit);
+            }
+            this.owner.addPet(pet);
+        }
+    }
+
+    @Benchmark
+    public List<Pet> getPets() {
+        return this.owner.getPets();
+    }
+
+    @Benchmark
+    public int renderOwner() {
+        int visits = 0;
+        for (Pet pet : this.owner.getPets()) {
+            for (Visit visit : pet.getVisits()) {
+                visits += visit.getDate() == null ? 0 : 1;
+            }
+        }
+        return visits;
+    }
+
+    @Benchmark
+    public int renderOwnerSortingOnEveryCall() {
+        int visits = 0;
+        for (Pet pet : sortedByReflection(this.owner.getPetsInternal(), "name", true, true)) {
+            for (Visit visit : sortedByReflection(pet.getVisitsInternal(), "date", false, false)) {
+                visits += visit.getDate() == null ? 0 : 1;
+            }
+        }
+        return visits;
+    }
+
+    private static <T> List<T> sortedByReflection(Iterable<T> values, String property, boolean ignoreCase,
+                                                  boolean ascending) {
+        List<T> sorted = new ArrayList<>();
+        values.forEach(sorted::add);
+        PropertyComparator.sort(sorted, new MutableSortDefinition(property, ignoreCase, ascending));
+        return Collections.unmodifiableList(sorted);
+    }
+
+}
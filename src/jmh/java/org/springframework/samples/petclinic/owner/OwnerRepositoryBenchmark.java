@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.ClinicState;
+
+/**
+ * Owner lookups against the seeded database: the unbounded prefix search, the first page of the
+ * keyset-paginated search used by the owners list, and lookup by id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnerRepositoryBenchmark {
+
+    private OwnerRepository owners;
+
+    /**
+     * The ids of the seeded owners, which leave gaps between the blocks handed out by the id generator.
+     */
+    private int[] ownerIds;
+
+    @Setup
+    public void setup(ClinicState clinic) {
+        this.owners = clinic.getBean(OwnerRepository.class);
+        this.ownerIds = this.owners.findByLastName("").stream().mapToInt(Owner::getId).toArray();
+    }
+
+    @Benchmark
+    public Collection<Owner> findByLastName(Search search) {
+        return this.owners.findByLastName(search.lastName);
+    }
+
+    @Benchmark
+    public List<Owner> findByLastNameFirstPage(Search search) {
+        return this.owners.findByLastName(search.lastName, "", 0, new PageRequest(0, 20));
+    }
+
+    @Benchmark
+    public Owner findById() {
+        return this.owners.findById(this.ownerIds[ThreadLocalRandom.current().nextInt(this.ownerIds.length)]);
+    }
+
+    /**
+     * The searched last name prefix; the empty string matches every owner.
+     */
+    @State(Scope.Benchmark)
+    public static class Search {
+
+        @Param({ "", "Davis" })
+        private String lastName;
+
+    }
+
+}
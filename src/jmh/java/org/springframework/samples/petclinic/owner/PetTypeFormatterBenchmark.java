@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import static org.mockito.BDDMockito.given;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link PetTypeFormatter#parse} against the linear scan over
+ * {@link PetRepository#findPetTypes()} it replaced. Both work on the same in-memory list of
+ * pet types, so the numbers leave out the database round-trip the scan used to pay on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetTypeFormatterBenchmark {
+
+    @Param({ "bird", "snake" })
+    private String name;
+
+    private PetTypeFormatter formatter;
+
+    private List<PetType> petTypes;
+
+    @Setup
+    public void setup() {
+        List<PetType> petTypes = new ArrayList<>();
+        for (String typeName : new String[] { "bird", "cat", "dog", "hamster", "lizard", "snake" }) {
+            PetType petType = new PetType();
+            petType.setId(petTypes.size() + 1);
+            petType.setName(typeName);
+            petTypes.add(petType);
+        }
+        this.petTypes = petTypes;
+        PetRepository pets = Mockito.mock(PetRepository.class);
+        given(pets.findCurrentPetTypes()).willReturn(petTypes);
+        this.formatter = new PetTypeFormatter(pets);
+    }
+
+    @Benchmark
+    public PetType linearScan() throws ParseException {
+        for (PetType type : this.petTypes) {
+            if (type.getName().equals(this.name)) {
+                return type;
+            }
+        }
+        throw new ParseException("type not found: " + this.name, 0);
+    }
+
+    @Benchmark
+    public PetType index() throws ParseException {
+        return this.formatter.parse(this.name, Locale.ENGLISH);
+    }
+
+}
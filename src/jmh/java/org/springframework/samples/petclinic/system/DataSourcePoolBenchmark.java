@@ -0,0 +1,107 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Throughput of 32 threads running the owner search and visit queries straight through JDBC, once
+ * on the connection pool as the application configures it ({@code spring.datasource.tomcat.*}:
+ * 20 connections, connection state and prepared statements cached) and once on a Tomcat JDBC
+ * pool with the default settings of {@link PoolProperties} (100 connections, no interceptors),
+ * both against the same embedded HSQLDB seeded with {@code SampleData.createLotsOfData()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class DataSourcePoolBenchmark {
+
+    private static final String[] LAST_NAME_PREFIXES = { "da", "mc", "sc", "jo", "es", "fr", "bl", "co" };
+
+    @Param({ "application", "default" })
+    private String pool;
+
+    private ConfigurableApplicationContext context;
+
+    private org.apache.tomcat.jdbc.pool.DataSource defaultPool;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private int maxPetId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        this.context = new SpringApplicationBuilder(PetClinicApplication.class)
+            .web(false)
+            .run("--spring.profiles.active=nocache", "--logging.level.root=WARN");
+        this.context.getBean(SampleData.class).createLotsOfData();
+
+        DataSource dataSource = this.context.getBean(DataSource.class);
+        if ("default".equals(this.pool)) {
+            DataSourceProperties properties = this.context.getBean(DataSourceProperties.class);
+            PoolProperties defaults = new PoolProperties();
+            defaults.setUrl(properties.determineUrl());
+            defaults.setDriverClassName(properties.determineDriverClassName());
+            defaults.setUsername(properties.determineUsername());
+            defaults.setPassword(properties.determinePassword());
+            this.defaultPool = new org.apache.tomcat.jdbc.pool.DataSource(defaults);
+            dataSource = this.defaultPool;
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.maxPetId = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM pets", Integer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        if (this.defaultPool != null) {
+            this.defaultPool.close();
+        }
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> findOwners() {
+        String prefix = LAST_NAME_PREFIXES[ThreadLocalRandom.current().nextInt(LAST_NAME_PREFIXES.length)];
+        return this.jdbcTemplate.queryForList(
+            "SELECT o.id, o.first_name, o.last_name, o.city, p.name FROM owners o " +
+            "LEFT JOIN pets p ON p.owner_id = o.id WHERE o.last_name_key LIKE ? " +
+            "ORDER BY o.last_name_key, o.id LIMIT 20", prefix + "%");
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> findVisits() {
+        return this.jdbcTemplate.queryForList(
+            "SELECT id, visit_date, description FROM visits WHERE pet_id = ? ORDER BY visit_date DESC",
+            ThreadLocalRandom.current().nextInt(1, this.maxPetId + 1));
+    }
+
+}
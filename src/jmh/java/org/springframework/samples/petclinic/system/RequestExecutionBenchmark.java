@@ -0,0 +1,88 @@
+package org.springframework.samples.petclinic.system;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Load test of the web application over HTTP: 64 concurrent clients against a server with 16
+ * container threads and 8 database connections, once with the controller methods running on the
+ * container threads and once with {@code petclinic.async.enabled}. Sample time mode reports the
+ * latency percentiles (p50 to p99.99) next to the throughput; caches are off, so every request
+ * goes to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class RequestExecutionBenchmark {
+
+    @Param({ "false", "true" })
+    private boolean async;
+
+    private EmbeddedWebApplicationContext context;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        this.context = (EmbeddedWebApplicationContext) new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--server.port=0", "--server.tomcat.max-threads=16", "--spring.datasource.tomcat.max-active=8",
+                "--petclinic.async.enabled=" + this.async, "--spring.profiles.active=nocache",
+                "--logging.level.root=WARN", "--logging.level.org.springframework=WARN");
+        this.baseUrl = "http://localhost:" + this.context.getEmbeddedServletContainer().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int showOwner() throws IOException {
+        return get("/owners/1");
+    }
+
+    @Benchmark
+    public int findOwners() throws IOException {
+        return get("/owners?lastName=Davis");
+    }
+
+    private int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(this.baseUrl + path).openConnection();
+        int status = connection.getResponseCode();
+        // read the body to the end so that the connection is kept alive
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            while (body != null && body.read(buffer) != -1) {
+                // discard
+            }
+        }
+        return status;
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.samples.petclinic.PetClinicApplication;
+
+/**
+ * Requests per second for {@code /vets.json} and {@code /vets.xml} over HTTP, 16 concurrent clients
+ * with the {@code production} profile (vets cached), asking for the plain or the gzipped body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class VetListRequestBenchmark {
+
+    @Param({ "identity", "gzip" })
+    private String encoding;
+
+    private EmbeddedWebApplicationContext context;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        this.context = (EmbeddedWebApplicationContext) new SpringApplicationBuilder(PetClinicApplication.class)
+            .run("--server.port=0", "--logging.level.root=WARN", "--logging.level.org.springframework=WARN");
+        this.baseUrl = "http://localhost:" + this.context.getEmbeddedServletContainer().getPort();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        return get("/vets.json");
+    }
+
+    @Benchmark
+    public int xml() throws IOException {
+        return get("/vets.xml");
+    }
+
+    private int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(this.baseUrl + path).openConnection();
+        connection.setRequestProperty("Accept-Encoding", this.encoding);
+        int status = connection.getResponseCode();
+        // read the body to the end so that the connection is kept alive
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            while (body != null && body.read(buffer) != -1) {
+                // discard
+            }
+        }
+        return status;
+    }
+
+}
@@ -31,7 +31,7 @@ import org.springframework.samples.petclinic.system.SampleData;
 @SpringBootApplication
 public class PetClinicApplication implements ApplicationListener<ContextRefreshedEvent> {
 
-    @Autowired
+    @Autowired(required = false)
     private SampleData sampleData;
 
     public static void main(String[] args) throws Exception {
@@ -40,7 +40,9 @@ public class PetClinicApplication implements ApplicationListener<ContextRefreshe
 
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
-        sampleData.create();
+        if (sampleData != null) {
+            sampleData.create();
+        }
     }
 
 }
@@ -0,0 +1,34 @@
+package org.springframework.samples.petclinic.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The executor the read API runs its queries on. It has as many threads as the JDBC pool has
+ * connections by default, since a query needs both; requests beyond that wait in a bounded queue
+ * and are rejected with 503 once it is full.
+ */
+@Configuration
+class ApiConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor apiExecutor(
+        @Value("${petclinic.api.threads:${spring.datasource.tomcat.max-active:100}}") int threads,
+        @Value("${petclinic.api.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("api-");
+        return executor;
+    }
+
+    @Bean
+    public ApiJson apiJson(ObjectMapper objectMapper) {
+        return new ApiJson(objectMapper);
+    }
+
+}
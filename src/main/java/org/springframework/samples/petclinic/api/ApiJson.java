@@ -0,0 +1,58 @@
+package org.springframework.samples.petclinic.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.samples.petclinic.model.BaseEntity;
+import org.springframework.samples.petclinic.owner.Pet;
+
+/**
+ * How the read API writes the clinic model as JSON. The entities are written as they are, with
+ * Jackson mix-ins dropping what does not belong in a response: the {@code new} flag, the
+ * back-reference from a pet to its owner and, in search results, the visits of each pet.
+ */
+final class ApiJson {
+
+    private final ObjectWriter detail;
+
+    private final ObjectWriter summary;
+
+    ApiJson(ObjectMapper objectMapper) {
+        this.detail = objectMapper.copy()
+            .addMixIn(BaseEntity.class, EntityMixin.class)
+            .addMixIn(Pet.class, PetMixin.class)
+            .writer();
+        this.summary = objectMapper.copy()
+            .addMixIn(BaseEntity.class, EntityMixin.class)
+            .addMixIn(Pet.class, PetSummaryMixin.class)
+            .writer();
+    }
+
+    /**
+     * @return a writer for an entity with everything that was read along with it
+     */
+    ObjectWriter detail() {
+        return this.detail;
+    }
+
+    /**
+     * @return a writer for an entity in a list, leaving out the visits of pets
+     */
+    ObjectWriter summary() {
+        return this.summary;
+    }
+
+    @JsonIgnoreProperties("new")
+    private abstract static class EntityMixin {
+    }
+
+    // replaces the ignored properties of EntityMixin for pets, hence "new" again
+    @JsonIgnoreProperties({ "new", "owner" })
+    private abstract static class PetMixin {
+    }
+
+    @JsonIgnoreProperties({ "new", "owner", "visits" })
+    private abstract static class PetSummaryMixin {
+    }
+
+}
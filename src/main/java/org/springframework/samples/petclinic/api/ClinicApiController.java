@@ -0,0 +1,141 @@
+package org.springframework.samples.petclinic.api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.bulk.Format;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * Read-only JSON API for clients polling the clinic at high concurrency:
+ * <ul>
+ * <li>{@code GET /api/vets}: all vets with their specialties, one JSON object per line</li>
+ * <li>{@code GET /api/owners?lastName=}: owners whose last name starts with the given name, with
+ * their pets, one JSON object per line</li>
+ * <li>{@code GET /api/owners/{ownerId}}: one owner with its pets and their visits</li>
+ * </ul>
+ * Every request is asynchronous: the servlet container thread is released as soon as the query
+ * is handed to the {@code apiExecutor}, and lists are written out entity by entity as they are
+ * read from the database rather than collected first. Entities are detached once written, so
+ * a long list does not pile up in the persistence context.
+ */
+@RestController
+@RequestMapping("/api")
+class ClinicApiController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(Format.NDJSON.getContentType());
+
+    private final VetRepository vets;
+
+    private final OwnerRepository owners;
+
+    private final AsyncTaskExecutor executor;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ApiJson json;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ClinicApiController(VetRepository vets, OwnerRepository owners,
+                               @Qualifier("apiExecutor") AsyncTaskExecutor executor,
+                               PlatformTransactionManager transactionManager, ApiJson json) {
+        this.vets = vets;
+        this.owners = owners;
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.json = json;
+    }
+
+    @GetMapping("/vets")
+    public ResponseEntity<ResponseBodyEmitter> vets() {
+        return stream(this.vets::streamAll, this.json.detail());
+    }
+
+    @GetMapping(value = "/owners", params = "lastName")
+    public ResponseEntity<ResponseBodyEmitter> owners(@RequestParam("lastName") String lastName) {
+        return stream(() -> this.owners.streamByLastName(lastName), this.json.summary());
+    }
+
+    @GetMapping("/owners/{ownerId}")
+    public DeferredResult<ResponseEntity<String>> owner(@PathVariable("ownerId") int ownerId) {
+        DeferredResult<ResponseEntity<String>> result = new DeferredResult<>();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    Owner owner = this.owners.findWithVisitsById(ownerId);
+                    result.setResult(owner == null ? ResponseEntity.notFound().build()
+                        : ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8)
+                            .body(this.json.detail().writeValueAsString(owner)));
+                } catch (Exception ex) {
+                    result.setErrorResult(ex);
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        return result;
+    }
+
+    private <T> ResponseEntity<ResponseBodyEmitter> stream(Supplier<Stream<T>> query, ObjectWriter writer) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        try {
+            this.executor.execute(() -> {
+                try {
+                    this.readOnlyTransaction.execute(status -> {
+                        try (Stream<T> entities = query.get()) {
+                            entities.forEach(entity -> {
+                                send(emitter, writer, entity);
+                                this.entityManager.detach(entity);
+                            });
+                        }
+                        return null;
+                    });
+                    emitter.complete();
+                } catch (Exception ex) {
+                    emitter.completeWithError(ex);
+                }
+            });
+        } catch (TaskRejectedException ex) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(emitter);
+    }
+
+    private static void send(ResponseBodyEmitter emitter, ObjectWriter writer, Object entity) {
+        try {
+            emitter.send(writer.writeValueAsString(entity) + "\n", NDJSON);
+        } catch (IOException ex) {
+            // typically the client went away: stop reading
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package org.springframework.samples.petclinic.bulk;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jfairy.Fairy;
+import org.jfairy.producer.person.Person;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.LastNameSearch;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates large volumes of random owners, pets and visits straight through JDBC batch inserts,
+ * for load testing. Rows are written in chunks of {@code petclinic.bulk.batch-size} owners (plus
+ * their pets and visits), one transaction per chunk.
+ * <p/>
+ * Ids are handed out by the generator itself: for every chunk it reserves a block of ids per
+ * table through {@link IdentityCounters}, then inserts the rows with explicit ids. Inserts made
+ * through JPA meanwhile take their ids from other blocks of the same counters.
+ */
+@Service
+public class BulkDataGenerator {
+
+    private static final String[] VISIT_DESCRIPTIONS = {"rabies shot", "neutered", "spayed"};
+    private static final int NAME_POOL_SIZE = 500;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkDataGenerator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdentityCounters identityCounters;
+
+    private final int batchSize;
+
+    private List<String> firstNames;
+    private List<String> lastNames;
+    private List<String> cities;
+    private List<String> streets;
+
+    @Autowired
+    public BulkDataGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             IdentityCounters identityCounters,
+                             @Value("${petclinic.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.identityCounters = identityCounters;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Insert the given number of random owners, each with one to four pets of the existing pet
+     * types and up to two visits per pet.
+     *
+     * @param ownerCount the number of owners to create
+     */
+    public void generate(int ownerCount) {
+        List<Integer> typeIds = jdbcTemplate.queryForList("SELECT id FROM types", Integer.class);
+        if (typeIds.isEmpty()) {
+            throw new IllegalStateException("pet types must exist before generating owners");
+        }
+        initNamePools();
+
+        long start = System.currentTimeMillis();
+        int pets = 0;
+        int visits = 0;
+        for (int created = 0; created < ownerCount; created += batchSize) {
+            Chunk chunk = createChunk(Math.min(batchSize, ownerCount - created), typeIds);
+            chunk.firstOwnerId = identityCounters.reserve("owners", chunk.owners.size());
+            chunk.firstPetId = identityCounters.reserve("pets", chunk.pets.size());
+            chunk.firstVisitId = identityCounters.reserve("visits", chunk.visits.size());
+            transactionTemplate.execute(status -> insert(chunk));
+            pets += chunk.pets.size();
+            visits += chunk.visits.size();
+        }
+        LOGGER.info("Created {} owners, {} pets and {} visits in {} ms",
+            ownerCount, pets, visits, System.currentTimeMillis() - start);
+    }
+
+    private synchronized void initNamePools() {
+        if (firstNames != null) {
+            return;
+        }
+        Fairy fairy = Fairy.create();
+        List<String> firstNames = new ArrayList<>(NAME_POOL_SIZE);
+        List<String> lastNames = new ArrayList<>(NAME_POOL_SIZE);
+        List<String> cities = new ArrayList<>(NAME_POOL_SIZE);
+        List<String> streets = new ArrayList<>(NAME_POOL_SIZE);
+        for (int i = 0; i < NAME_POOL_SIZE; i++) {
+            Person person = fairy.person();
+            firstNames.add(person.firstName());
+            lastNames.add(person.lastName());
+            cities.add(person.getAddress().getCity());
+            streets.add(StringUtils.capitalize(fairy.textProducer().word(1)) + " Street");
+        }
+        this.lastNames = lastNames;
+        this.cities = cities;
+        this.streets = streets;
+        this.firstNames = firstNames;
+    }
+
+    private Chunk createChunk(int ownerCount, List<Integer> typeIds) {
+        Random random = ThreadLocalRandom.current();
+        LocalDate today = LocalDate.now();
+        Chunk chunk = new Chunk();
+        for (int o = 0; o < ownerCount; o++) {
+            int owner = chunk.owners.size();
+            chunk.owners.add(new Object[]{
+                pick(firstNames, random),
+                pick(lastNames, random),
+                (random.nextInt(100) + 1) + " " + pick(streets, random),
+                pick(cities, random),
+                String.valueOf(100000000 + random.nextInt(100000000))
+            });
+            for (int p = random.nextInt(4); p >= 0; p--) {
+                int pet = chunk.pets.size();
+                chunk.pets.add(new Object[]{
+                    pick(firstNames, random),
+                    Date.valueOf(today.minusYears(3).minusDays(random.nextInt(5 * 365))),
+                    typeIds.get(random.nextInt(typeIds.size())),
+                    owner
+                });
+                for (int v = random.nextInt(3); v > 0; v--) {
+                    chunk.visits.add(new Object[]{
+                        pet,
+                        Date.valueOf(today.minusDays(random.nextInt(3 * 365))),
+                        VISIT_DESCRIPTIONS[random.nextInt(VISIT_DESCRIPTIONS.length)]
+                    });
+                }
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Turn the chunk-relative row numbers into reserved ids and batch insert all rows.
+     */
+    private Void insert(Chunk chunk) {
+        int firstOwnerId = chunk.firstOwnerId;
+        int firstPetId = chunk.firstPetId;
+        int firstVisitId = chunk.firstVisitId;
+
+        List<Object[]> owners = new ArrayList<>(chunk.owners.size());
+        for (int i = 0; i < chunk.owners.size(); i++) {
+            Object[] row = chunk.owners.get(i);
+            owners.add(new Object[]{firstOwnerId + i, row[0], row[1], LastNameSearch.key((String) row[1]),
+                row[2], row[3], row[4]});
+        }
+        List<Object[]> pets = new ArrayList<>(chunk.pets.size());
+        for (int i = 0; i < chunk.pets.size(); i++) {
+            Object[] row = chunk.pets.get(i);
+            pets.add(new Object[]{firstPetId + i, row[0], row[1], row[2], firstOwnerId + (Integer) row[3]});
+        }
+        List<Object[]> visits = new ArrayList<>(chunk.visits.size());
+        for (int i = 0; i < chunk.visits.size(); i++) {
+            Object[] row = chunk.visits.get(i);
+            visits.add(new Object[]{firstVisitId + i, firstPetId + (Integer) row[0], row[1], row[2]});
+        }
+
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO owners (id, first_name, last_name, last_name_key, address, city, telephone) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", owners);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)", pets);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)", visits);
+        return null;
+    }
+
+    private static String pick(List<String> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * Rows of one chunk; pets point at their owner and visits at their pet by position in the chunk.
+     */
+    private static class Chunk {
+        private final List<Object[]> owners = new ArrayList<>();
+        private final List<Object[]> pets = new ArrayList<>();
+        private final List<Object[]> visits = new ArrayList<>();
+        private int firstOwnerId;
+        private int firstPetId;
+        private int firstVisitId;
+    }
+}
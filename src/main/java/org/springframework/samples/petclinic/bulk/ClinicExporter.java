@@ -0,0 +1,149 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+/**
+ * Streams whole tables out as CSV or NDJSON. Rows are read through a forward-only JDBC cursor and
+ * written one at a time, so memory use does not depend on the size of the table.
+ */
+@Service
+public class ClinicExporter {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Autowired
+    public ClinicExporter(DataSource dataSource, @Value("${database}") String database) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J only streams results row by row with this magic fetch size
+        this.jdbcTemplate.setFetchSize("mysql".equals(database) ? Integer.MIN_VALUE : FETCH_SIZE);
+    }
+
+    /**
+     * Write all rows of the given dataset to the stream. The stream is flushed but not closed.
+     */
+    public void export(Dataset dataset, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        ResultSetExtractor<Void> rowWriter =
+            format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+        try {
+            jdbcTemplate.query(dataset.getExportQuery(), rowWriter);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes the header from the metadata of the query, so that an empty table still exports its
+     * columns, and then a line per row.
+     */
+    private static class CsvRowWriter implements ResultSetExtractor<Void> {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public Void extractData(ResultSet rs) throws SQLException {
+            try {
+                String[] columns = columnNames(rs.getMetaData());
+                writeLine(columns);
+                String[] values = new String[columns.length];
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        Object value = rs.getObject(i + 1);
+                        values[i] = value == null ? "" : value.toString();
+                    }
+                    writeLine(values);
+                }
+                return null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void writeLine(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(CsvUtils.escape(values[i]));
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes an object per row, all through the one generator of the export.
+     */
+    private class NdjsonRowWriter implements ResultSetExtractor<Void> {
+
+        private final Writer writer;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public Void extractData(ResultSet rs) throws SQLException {
+            try (JsonGenerator json = jsonFactory.createGenerator(writer)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // each object ends its own line, instead of being separated from the next by a space
+                json.setRootValueSeparator(null);
+                String[] columns = columnNames(rs.getMetaData());
+                while (rs.next()) {
+                    json.writeStartObject();
+                    for (int i = 0; i < columns.length; i++) {
+                        Object value = rs.getObject(i + 1);
+                        if (value == null) {
+                            json.writeNullField(columns[i]);
+                        } else if (value instanceof Number) {
+                            json.writeNumberField(columns[i], ((Number) value).longValue());
+                        } else {
+                            json.writeStringField(columns[i], value.toString());
+                        }
+                    }
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                }
+                return null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private static String[] columnNames(ResultSetMetaData metaData) throws SQLException {
+        String[] columns = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1).toLowerCase();
+        }
+        return columns;
+    }
+
+}
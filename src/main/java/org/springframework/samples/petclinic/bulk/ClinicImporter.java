@@ -0,0 +1,323 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.Validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.owner.LastNameSearch;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.PetValidator;
+import org.springframework.samples.petclinic.system.ResourceVersions;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+/**
+ * Imports owners, pets or visits from CSV or NDJSON in the format written by {@link ClinicExporter}.
+ * <p/>
+ * Records are parsed and validated one at a time, with the same rules as the forms: the Bean
+ * Validation constraints of {@link Owner} and {@link Visit}, and {@link PetValidator}. Valid rows
+ * are collected into chunks of {@code petclinic.bulk.batch-size} and written with one JDBC batch
+ * per chunk. Invalid rows, and rows the database refuses, are rejected and reported without
+ * stopping the import.
+ * <p/>
+ * Rows keep their {@code id} if they have one, so that pets and visits can refer to the owners and
+ * pets of earlier imports; rows without one get ids reserved through {@link IdentityCounters}.
+ */
+@Service
+public class ClinicImporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClinicImporter.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdentityCounters identityCounters;
+
+    private final ResourceVersions resourceVersions;
+
+    private final PetVisitStatsRepository petVisitStats;
+
+    private final int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Validator beanValidator =
+        new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator());
+
+    private final Validator petValidator = new PetValidator();
+
+    @Autowired
+    public ClinicImporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          IdentityCounters identityCounters, ResourceVersions resourceVersions,
+                          PetVisitStatsRepository petVisitStats, @Value("${petclinic.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.identityCounters = identityCounters;
+        this.resourceVersions = resourceVersions;
+        this.petVisitStats = petVisitStats;
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importRows(Dataset dataset, Format format, InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportResult result = new ImportResult(dataset);
+        RecordReader reader = RecordReader.of(format, in, objectMapper);
+        Map<String, PetType> petTypes = dataset == Dataset.PETS ? loadPetTypes() : null;
+        boolean explicitIds = false;
+
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        while (true) {
+            Map<String, String> record;
+            try {
+                record = reader.next();
+            } catch (IllegalArgumentException ex) {
+                result.rejected(result.read(), ex.getMessage());
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            int number = result.read();
+            ImportRow row;
+            try {
+                row = toRow(dataset, number, record, petTypes);
+            } catch (IllegalArgumentException ex) {
+                result.rejected(number, ex.getMessage());
+                continue;
+            }
+            explicitIds |= row.id != null;
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                write(dataset, chunk, result);
+                chunk.clear();
+                LOGGER.info("Importing {}: {} rows read, {} imported, {} rejected", dataset.getTable(),
+                    result.getRowsRead(), result.getRowsImported(), result.getRowsRejected());
+            }
+        }
+        write(dataset, chunk, result);
+        if (explicitIds) {
+            identityCounters.skipPastMaxId(dataset.getTable());
+        }
+        if (result.getRowsImported() > 0) {
+            if (dataset == Dataset.VISITS) {
+                petVisitStats.rebuild();
+            }
+            // pets and visits may have been added to any owner
+            resourceVersions.allChanged();
+        }
+
+        LOGGER.info("Imported {}: {} rows read, {} imported, {} rejected in {} ms", dataset.getTable(),
+            result.getRowsRead(), result.getRowsImported(), result.getRowsRejected(),
+            System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private Map<String, PetType> loadPetTypes() {
+        Map<String, PetType> petTypes = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM types", rs -> {
+            PetType petType = new PetType();
+            petType.setId(rs.getInt("id"));
+            petType.setName(rs.getString("name"));
+            petTypes.put(petType.getName(), petType);
+        });
+        return petTypes;
+    }
+
+    private ImportRow toRow(Dataset dataset, int number, Map<String, String> record, Map<String, PetType> petTypes) {
+        Integer id = parseInteger(record, "id", false);
+        switch (dataset) {
+            case OWNERS:
+                Owner owner = new Owner();
+                owner.setFirstName(record.get("first_name"));
+                owner.setLastName(record.get("last_name"));
+                owner.setAddress(record.get("address"));
+                owner.setCity(record.get("city"));
+                owner.setTelephone(record.get("telephone"));
+                validate(owner, beanValidator);
+                return new ImportRow(number, id, null, owner.getFirstName(), owner.getLastName(),
+                    LastNameSearch.key(owner.getLastName()), owner.getAddress(), owner.getCity(), owner.getTelephone());
+            case PETS:
+                Integer ownerId = parseInteger(record, "owner_id", true);
+                String typeName = record.get("type");
+                if (typeName != null && !petTypes.containsKey(typeName)) {
+                    throw new IllegalArgumentException("type: unknown pet type '" + typeName + "'");
+                }
+                Pet pet = new Pet();
+                pet.setName(record.get("name"));
+                pet.setBirthDate(parseDate(record, "birth_date"));
+                pet.setType(petTypes.get(typeName));
+                validate(pet, petValidator);
+                return new ImportRow(number, id, ownerId, pet.getName(), pet.getBirthDate(), pet.getType().getId());
+            case VISITS:
+                Visit visit = new Visit();
+                visit.setPetId(parseInteger(record, "pet_id", true));
+                visit.setDate(parseDate(record, "visit_date"));
+                visit.setDescription(record.get("description"));
+                validate(visit, beanValidator);
+                if (visit.getDate() == null) {
+                    throw new IllegalArgumentException("visit_date: required");
+                }
+                return new ImportRow(number, id, visit.getPetId(), visit.getDate(), visit.getDescription());
+            default:
+                throw new IllegalStateException("Unknown dataset " + dataset);
+        }
+    }
+
+    private static void validate(Object target, Validator validator) {
+        Errors errors = new BeanPropertyBindingResult(target, "row");
+        validator.validate(target, errors);
+        if (errors.hasErrors()) {
+            throw new IllegalArgumentException(errors.getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static Integer parseInteger(Map<String, String> record, String column, boolean required) {
+        String value = record.get(column);
+        if (value == null) {
+            if (required) {
+                throw new IllegalArgumentException(column + ": required");
+            }
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + ": not a number '" + value + "'");
+        }
+    }
+
+    private static Date parseDate(Map<String, String> record, String column) {
+        String value = record.get(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Date.valueOf(LocalDate.parse(value.trim()));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException(column + ": not a yyyy-MM-dd date '" + value + "'");
+        }
+    }
+
+    private void write(Dataset dataset, List<ImportRow> chunk, ImportResult result) {
+        List<ImportRow> rows = withExistingParents(dataset, chunk, result);
+        if (rows.isEmpty()) {
+            return;
+        }
+        int withoutId = (int) rows.stream().filter(row -> row.id == null).count();
+        if (withoutId > 0) {
+            int nextId = identityCounters.reserve(dataset.getTable(), withoutId);
+            for (ImportRow row : rows) {
+                if (row.id == null) {
+                    row.id = nextId++;
+                }
+            }
+        }
+
+        List<Object[]> batch = rows.stream().map(ImportRow::toParameters).collect(Collectors.toList());
+        try {
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(dataset.getInsertStatement(), batch));
+            result.imported(rows.size());
+        } catch (DataAccessException ex) {
+            // the chunk was rolled back; insert its rows one by one to find the ones the database refuses
+            transactionTemplate.execute(status -> {
+                for (ImportRow row : rows) {
+                    try {
+                        jdbcTemplate.update(dataset.getInsertStatement(), row.toParameters());
+                        result.imported(1);
+                    } catch (DataAccessException rowEx) {
+                        result.rejected(row.number, rowEx.getMostSpecificCause().getMessage());
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    private List<ImportRow> withExistingParents(Dataset dataset, List<ImportRow> chunk, ImportResult result) {
+        if (dataset.getParentTable() == null || chunk.isEmpty()) {
+            return chunk;
+        }
+        Set<Integer> parentIds = chunk.stream().map(row -> row.parentId).collect(Collectors.toSet());
+        Set<Integer> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+            "SELECT id FROM " + dataset.getParentTable() + " WHERE id IN (:ids)",
+            Collections.singletonMap("ids", parentIds), Integer.class));
+
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(row.parentId)) {
+                rows.add(row);
+            } else {
+                result.rejected(row.number, "no row with id " + row.parentId + " in " + dataset.getParentTable());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * A validated row: its number in the input, its id if it has one yet, the id of the row it
+     * belongs to, and the remaining column values in insert order.
+     */
+    private static class ImportRow {
+
+        private final int number;
+
+        private Integer id;
+
+        private final Integer parentId;
+
+        private final Object[] values;
+
+        ImportRow(int number, Integer id, Integer parentId, Object... values) {
+            this.number = number;
+            this.id = id;
+            this.parentId = parentId;
+            this.values = values;
+        }
+
+        Object[] toParameters() {
+            Object[] parameters = new Object[values.length + (parentId == null ? 1 : 2)];
+            parameters[0] = id;
+            System.arraycopy(values, 0, parameters, 1, values.length);
+            if (parentId != null) {
+                parameters[parameters.length - 1] = parentId;
+            }
+            return parameters;
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 quoting and parsing, shared by export and import.
+ */
+final class CsvUtils {
+
+    private CsvUtils() {
+    }
+
+    /**
+     * Quote the value if it contains a separator, a quote or a line break.
+     */
+    static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Read one record, which may span several lines if a quoted value contains line breaks.
+     *
+     * @return the values of the record, or {@code null} at the end of the input
+     */
+    static String[] readRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IllegalArgumentException("unterminated quoted value");
+                }
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        value.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c < 0 || c == '\n') {
+                break;
+            } else if (c == '\r') {
+                reader.mark(1);
+                if (reader.read() != '\n') {
+                    reader.reset();
+                }
+                break;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+        values.add(value.toString());
+        return values.toArray(new String[values.size()]);
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.springframework.samples.petclinic.bulk;
+
+/**
+ * The tables that can be exported and imported in bulk, with the columns they are exchanged with.
+ */
+public enum Dataset {
+
+    OWNERS("owners", null,
+        "SELECT id, first_name, last_name, address, city, telephone FROM owners ORDER BY id",
+        "INSERT INTO owners (id, first_name, last_name, last_name_key, address, city, telephone) VALUES (?, ?, ?, ?, ?, ?, ?)"),
+    PETS("pets", "owners",
+        "SELECT p.id, p.name, p.birth_date, t.name AS type, p.owner_id FROM pets p JOIN types t ON t.id = p.type_id ORDER BY p.id",
+        "INSERT INTO pets (id, name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?, ?)"),
+    VISITS("visits", "pets",
+        "SELECT id, pet_id, visit_date, description FROM visits ORDER BY id",
+        "INSERT INTO visits (id, visit_date, description, pet_id) VALUES (?, ?, ?, ?)");
+
+    private final String table;
+
+    private final String parentTable;
+
+    private final String exportQuery;
+
+    private final String insertStatement;
+
+    Dataset(String table, String parentTable, String exportQuery, String insertStatement) {
+        this.table = table;
+        this.parentTable = parentTable;
+        this.exportQuery = exportQuery;
+        this.insertStatement = insertStatement;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the table that every row must reference through its last insert parameter, or {@code null}
+     */
+    public String getParentTable() {
+        return parentTable;
+    }
+
+    public String getExportQuery() {
+        return exportQuery;
+    }
+
+    /**
+     * @return the insert statement, taking the id first
+     */
+    public String getInsertStatement() {
+        return insertStatement;
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Downloads of whole tables, e.g. {@code /export/owners.csv} or {@code /export/visits.ndjson}.
+ */
+@Controller
+class ExportController {
+
+    private final ClinicExporter exporter;
+
+    @Autowired
+    public ExportController(ClinicExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    @GetMapping("/export/{dataset:owners|pets|visits}.{format:csv|ndjson}")
+    public void export(@PathVariable("dataset") String dataset, @PathVariable("format") String format,
+                       HttpServletResponse response) throws IOException {
+        Format exportFormat = Format.valueOf(format.toUpperCase());
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + dataset + "." + format + "\"");
+        exporter.export(Dataset.valueOf(dataset.toUpperCase()), exportFormat, response.getOutputStream());
+    }
+
+}
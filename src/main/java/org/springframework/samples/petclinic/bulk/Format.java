@@ -0,0 +1,21 @@
+package org.springframework.samples.petclinic.bulk;
+
+/**
+ * The row formats of bulk exports and imports: CSV with a header line, or one JSON object per line.
+ */
+public enum Format {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    Format(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.springframework.samples.petclinic.bulk;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Allocates ids for rows inserted in bulk with explicit ids from the {@code id_generators} table,
+ * the same counters Hibernate allocates its blocks of entity ids from, so that the two never
+ * collide.
+ * <p/>
+ * Each call runs and commits in a transaction of its own, so that the counter row stays locked
+ * only for as long as it takes to move it, whatever transaction the caller is in.
+ */
+@Service
+class IdentityCounters {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public IdentityCounters(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserve a block of consecutive ids that neither Hibernate nor another reservation will hand
+     * out, even if no row has been inserted with them yet.
+     *
+     * @return the first id of the block
+     */
+    public int reserve(String table, int count) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update("UPDATE id_generators SET next_id = next_id + ? WHERE table_name = ?", count, table);
+            Number next = jdbcTemplate.queryForObject("SELECT next_id FROM id_generators WHERE table_name = ?",
+                Number.class, table);
+            return next.intValue() - count;
+        });
+    }
+
+    /**
+     * Move the counter past the highest id in the table, after rows were inserted with ids of
+     * their own. Ids below the counter that Hibernate has taken in a block but not used yet are
+     * still handed out, so such rows should come with ids above the counter.
+     */
+    public void skipPastMaxId(String table) {
+        transactionTemplate.execute(status -> jdbcTemplate.update(
+            "UPDATE id_generators SET next_id = (SELECT COALESCE(MAX(id), 0) + 1 FROM " + table + ") " +
+            "WHERE table_name = ? AND next_id <= (SELECT COALESCE(MAX(id), 0) FROM " + table + ")", table));
+    }
+
+}
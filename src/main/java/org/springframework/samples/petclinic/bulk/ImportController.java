@@ -0,0 +1,33 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Uploads of whole tables in the export format, e.g. {@code POST /import/owners.csv}. Responds
+ * with the {@link ImportResult}.
+ */
+@Controller
+class ImportController {
+
+    private final ClinicImporter importer;
+
+    @Autowired
+    public ImportController(ClinicImporter importer) {
+        this.importer = importer;
+    }
+
+    @PostMapping("/import/{dataset:owners|pets|visits}.{format:csv|ndjson}")
+    public @ResponseBody ImportResult importRows(@PathVariable("dataset") String dataset,
+                                                 @PathVariable("format") String format,
+                                                 InputStream body) throws IOException {
+        return importer.importRows(Dataset.valueOf(dataset.toUpperCase()), Format.valueOf(format.toUpperCase()), body);
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: how many rows were read, imported and rejected, and why the first
+ * {@value #MAX_REPORTED_ERRORS} rejected rows were rejected.
+ */
+public class ImportResult {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final Dataset dataset;
+
+    private int rowsRead;
+
+    private int rowsImported;
+
+    private int rowsRejected;
+
+    private final List<RowError> errors = new ArrayList<>();
+
+    ImportResult(Dataset dataset) {
+        this.dataset = dataset;
+    }
+
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    public int getRowsImported() {
+        return rowsImported;
+    }
+
+    public int getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    int read() {
+        return ++rowsRead;
+    }
+
+    void imported(int count) {
+        rowsImported += count;
+    }
+
+    void rejected(int row, String message) {
+        rowsRejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    /**
+     * Why a row was rejected. Rows are numbered from 1, not counting the CSV header.
+     */
+    public static class RowError {
+
+        private final int row;
+
+        private final String message;
+
+        RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+}
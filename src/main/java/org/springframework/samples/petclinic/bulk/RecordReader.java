@@ -0,0 +1,111 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads the records of a bulk import one at a time, as column name to value maps. Column names are
+ * lower-cased so that files written by {@link ClinicExporter} can be read back as they are.
+ */
+abstract class RecordReader {
+
+    protected final BufferedReader reader;
+
+    protected RecordReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static RecordReader of(Format format, InputStream in, ObjectMapper objectMapper) {
+        return format == Format.CSV ? new Csv(in) : new Ndjson(in, objectMapper);
+    }
+
+    /**
+     * @return the next record, or {@code null} at the end of the input
+     * @throws IllegalArgumentException if the record is malformed; reading can carry on with the next one
+     */
+    abstract Map<String, String> next() throws IOException;
+
+    private static class Csv extends RecordReader {
+
+        private String[] header;
+
+        Csv(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        Map<String, String> next() throws IOException {
+            if (header == null) {
+                header = CsvUtils.readRecord(reader);
+                if (header == null) {
+                    return null;
+                }
+                for (int i = 0; i < header.length; i++) {
+                    header[i] = header[i].trim().toLowerCase();
+                }
+            }
+            String[] values = CsvUtils.readRecord(reader);
+            if (values == null) {
+                return null;
+            }
+            if (values.length != header.length) {
+                throw new IllegalArgumentException(
+                    "expected " + header.length + " columns but found " + values.length);
+            }
+            Map<String, String> record = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                record.put(header[i], values[i].isEmpty() ? null : values[i]);
+            }
+            return record;
+        }
+    }
+
+    private static class Ndjson extends RecordReader {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Map<String, String> next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.trim().isEmpty());
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException ex) {
+                throw new IllegalArgumentException("malformed JSON: " + ex.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            Map<String, String> record = new LinkedHashMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode value = field.getValue();
+                record.put(field.getKey().toLowerCase(), value.isNull() ? null : value.asText());
+            }
+            return record;
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.samples.petclinic.visit.Visit;
+
+/**
+ * Append-only journal of the visits {@link VisitWriteBehind} has accepted, one JSON object per line,
+ * each forced to disk before {@link #append(Visit)} returns. The journal is split into segment files
+ * of {@code segmentSize} visits, named after the journal path and a sequence number
+ * ({@code visits-journal.ndjson.1}, {@code visits-journal.ndjson.2}, ...): a segment is deleted as
+ * soon as every visit in it is in the database, so that the journal does not grow while visits
+ * keep coming in. The segments left are read back at startup to write whatever did not make it
+ * there.
+ * <p/>
+ * Not thread-safe: {@link VisitWriteBehind} calls it under a lock of its own.
+ */
+class VisitJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisitJournal.class);
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    private final int segmentSize;
+
+    /**
+     * The segments that hold visits not written yet, and the one appended to, by sequence number.
+     */
+    private final Map<Long, Segment> segments = new HashMap<>();
+
+    /**
+     * Sequence number of the segment of each visit appended but not written yet, by visit id.
+     */
+    private final Map<Integer, Long> segmentOfVisit = new HashMap<>();
+
+    private Segment current;
+
+    private FileChannel channel;
+
+    VisitJournal(Path path, ObjectMapper objectMapper, int segmentSize) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.objectMapper = objectMapper;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(this.path.getParent());
+        // the segments of a previous run stay as they are until read and cleared
+        List<Path> previous = segmentPaths();
+        open(previous.isEmpty() ? 1 : sequenceNumber(previous.get(previous.size() - 1)) + 1);
+    }
+
+    Path getPath() {
+        return this.path;
+    }
+
+    void append(Visit visit) throws IOException {
+        if (this.current.appended == this.segmentSize) {
+            this.channel.close();
+            if (this.current.unwritten == 0) {
+                delete(this.current);
+            }
+            open(this.current.number + 1);
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", visit.getId());
+        record.put("petId", visit.getPetId());
+        record.put("date", visit.getDate() == null ? null : visit.getDate().getTime());
+        record.put("description", visit.getDescription());
+        ByteBuffer line = ByteBuffer.wrap((this.objectMapper.writeValueAsString(record) + "\n")
+            .getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            this.channel.write(line);
+        }
+        this.channel.force(false);
+        this.current.appended++;
+        this.current.unwritten++;
+        this.segmentOfVisit.put(visit.getId(), this.current.number);
+    }
+
+    /**
+     * Record that visits appended before are in the database now, deleting the segments that have
+     * no other visits left to write. The segment appended to is emptied instead.
+     */
+    void written(List<Visit> visits) throws IOException {
+        for (Visit visit : visits) {
+            Long number = this.segmentOfVisit.remove(visit.getId());
+            Segment segment = number == null ? null : this.segments.get(number);
+            if (segment == null || --segment.unwritten > 0) {
+                continue;
+            }
+            if (segment == this.current) {
+                this.channel.truncate(0);
+                this.channel.force(false);
+                this.current.appended = 0;
+            } else {
+                delete(segment);
+            }
+        }
+    }
+
+    /**
+     * @return the visits in all segments, in the order they were appended, leaving out a last line
+     * that was cut short by a crash
+     */
+    List<Visit> read() throws IOException {
+        List<Visit> visits = new ArrayList<>();
+        for (Path segment : segmentPaths()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        visits.add(toVisit(this.objectMapper.readTree(line)));
+                    } catch (JsonProcessingException ex) {
+                        LOGGER.warn("Skipping incomplete line of visit journal {}: {}", segment, line);
+                    }
+                }
+            }
+        }
+        return visits;
+    }
+
+    /**
+     * Delete every segment, once all visits in them are in the database, and start a new one.
+     */
+    void clear() throws IOException {
+        this.channel.close();
+        for (Path segment : segmentPaths()) {
+            Files.deleteIfExists(segment);
+        }
+        this.segments.clear();
+        this.segmentOfVisit.clear();
+        open(this.current.number + 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void open(long number) throws IOException {
+        this.current = new Segment(number, this.path.resolveSibling(this.path.getFileName() + "." + number));
+        this.segments.put(number, this.current);
+        this.channel = FileChannel.open(this.current.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void delete(Segment segment) throws IOException {
+        this.segments.remove(segment.number);
+        Files.deleteIfExists(segment.path);
+    }
+
+    /**
+     * @return the segment files of the journal, in the order they were written
+     */
+    private List<Path> segmentPaths() throws IOException {
+        String prefix = this.path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(this.path.getParent())) {
+            return files
+                .filter(file -> file.getFileName().toString().startsWith(prefix)
+                    && file.getFileName().toString().substring(prefix.length()).matches("[0-9]+"))
+                .sorted(Comparator.comparingLong(VisitJournal::sequenceNumber))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static long sequenceNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    private static Visit toVisit(JsonNode record) {
+        Visit visit = new Visit();
+        visit.setId(record.get("id").asInt());
+        visit.setPetId(record.get("petId").asInt());
+        visit.setDate(record.get("date").isNull() ? null : new Date(record.get("date").asLong()));
+        visit.setDescription(record.get("description").asText(null));
+        return visit;
+    }
+
+    private static class Segment {
+
+        private final long number;
+
+        private final Path path;
+
+        private int appended;
+
+        private int unwritten;
+
+        Segment(long number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+    }
+
+}
@@ -0,0 +1,342 @@
+package org.springframework.samples.petclinic.bulk;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.samples.petclinic.system.ResourceVersions;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Opt-in write-behind mode for new visits ({@code petclinic.visits.write-behind.enabled=true}):
+ * instead of one insert per request, visits are queued and written by a background thread in JDBC
+ * batches of {@code batch-size}, or of whatever arrived within {@code max-delay-ms} of the first
+ * visit of a batch. A new visit therefore shows up on the owner page up to that delay later.
+ * <p/>
+ * A visit is accepted only once it is in the {@link VisitJournal}, on disk, so that visits still
+ * queued when the application dies are written at the next start. Visits get their id when they
+ * are accepted, from a block reserved through {@link IdentityCounters}, which makes writing them
+ * idempotent: a batch that is written again after a failure or a crash skips the visits that are
+ * in the database already. On shutdown, everything still queued is written before the database
+ * goes away.
+ * <p/>
+ * When the queue is full (or the journal cannot be written), {@link #add(Visit)} refuses the
+ * visit and the caller saves it right away instead.
+ */
+@Service
+@ConditionalOnProperty(name = "petclinic.visits.write-behind.enabled", havingValue = "true")
+public class VisitWriteBehind implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisitWriteBehind.class);
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdentityCounters identityCounters;
+
+    private final PetVisitStatsRepository petVisitStats;
+
+    private final ResourceVersions resourceVersions;
+
+    private final VisitJournal journal;
+
+    private final BlockingQueue<Visit> queue;
+
+    private final int batchSize;
+
+    private final long maxDelayMillis;
+
+    private final Thread writer = new Thread(this::writeQueued, "visit-write-behind");
+
+    /**
+     * Guards the journal, the id block and {@link #unwritten}.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int nextId;
+
+    private int idBlockEnd;
+
+    private int unwritten;
+
+    private volatile boolean running;
+
+    @Autowired
+    public VisitWriteBehind(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            IdentityCounters identityCounters, PetVisitStatsRepository petVisitStats,
+                            ResourceVersions resourceVersions, ObjectMapper objectMapper,
+                            @Value("${petclinic.visits.write-behind.journal:visits-journal.ndjson}") String journal,
+                            @Value("${petclinic.visits.write-behind.batch-size:100}") int batchSize,
+                            @Value("${petclinic.visits.write-behind.max-delay-ms:200}") long maxDelayMillis,
+                            @Value("${petclinic.visits.write-behind.queue-capacity:10000}") int queueCapacity)
+        throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.identityCounters = identityCounters;
+        this.petVisitStats = petVisitStats;
+        this.resourceVersions = resourceVersions;
+        this.journal = new VisitJournal(Paths.get(journal), objectMapper, batchSize);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Write the visits left in the journal by the previous run, then start the writer thread.
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        List<Visit> journaled = this.journal.read();
+        if (!journaled.isEmpty()) {
+            for (int from = 0; from < journaled.size(); from += this.batchSize) {
+                writeBatch(journaled.subList(from, Math.min(from + this.batchSize, journaled.size())), true);
+            }
+            LOGGER.info("Wrote {} visits left in journal {}", journaled.size(), this.journal.getPath());
+        }
+        this.journal.clear();
+        this.running = true;
+        this.writer.start();
+    }
+
+    /**
+     * Queue a validated visit for writing in the next batch. A visit of a pet that does not exist
+     * is not accepted, so that saving it fails for the caller rather than for the writer.
+     *
+     * @return {@code true} if the visit is on disk in the journal and will be written, with the id
+     * it has been given; {@code false} if the caller should save it itself
+     */
+    public boolean add(Visit visit) {
+        if (!petExists(visit.getPetId())) {
+            return false;
+        }
+        this.lock.lock();
+        try {
+            if (!this.running || this.queue.remainingCapacity() == 0) {
+                return false;
+            }
+            visit.setId(nextId());
+            this.journal.append(visit);
+            this.queue.add(visit);
+            this.unwritten++;
+            return true;
+        } catch (IOException | DataAccessException ex) {
+            LOGGER.warn("Could not queue visit of pet {}, saving it right away", visit.getPetId(), ex);
+            visit.setId(null);
+            return false;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of visits accepted but not written yet
+     */
+    public int getPending() {
+        this.lock.lock();
+        try {
+            return this.unwritten;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting visits and write the queued ones, within the time it takes to write them
+     * (or to fail writing them: the journal keeps those for the next start).
+     */
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        this.lock.lock();
+        try {
+            this.running = false;
+        } finally {
+            this.lock.unlock();
+        }
+        this.writer.join();
+        this.journal.close();
+    }
+
+    private boolean petExists(Integer petId) {
+        try {
+            return petId != null && this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pets WHERE id = ?",
+                Integer.class, petId) > 0;
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Could not look up pet {}, saving its visit right away", petId, ex);
+            return false;
+        }
+    }
+
+    private int nextId() {
+        if (this.nextId == this.idBlockEnd) {
+            this.nextId = this.identityCounters.reserve(Dataset.VISITS.getTable(), this.batchSize);
+            this.idBlockEnd = this.nextId + this.batchSize;
+        }
+        return this.nextId++;
+    }
+
+    private void writeQueued() {
+        List<Visit> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    if (!poll(batch)) {
+                        continue;
+                    }
+                } else {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                }
+                writeWithRetries(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                if (!this.running) {
+                    LOGGER.error("Could not write {} visits on shutdown, they stay in journal {}", batch.size(),
+                        this.journal.getPath(), ex);
+                    batch.clear();
+                } else {
+                    LOGGER.error("Could not write {} visits, retrying in {} ms", batch.size(), RETRY_DELAY_MILLIS,
+                        ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the next batch off the queue: the first visit to arrive within {@code max-delay-ms}, and
+     * whatever follows it within {@code max-delay-ms}, up to {@code batch-size} visits.
+     *
+     * @return {@code false} if no visit arrived
+     */
+    private boolean poll(List<Visit> batch) throws InterruptedException {
+        Visit first = this.queue.poll(this.maxDelayMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + this.maxDelayMillis;
+        while (batch.size() < this.batchSize) {
+            long wait = deadline - System.currentTimeMillis();
+            Visit next = wait > 0 ? this.queue.poll(wait, TimeUnit.MILLISECONDS) : this.queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    /**
+     * Write a batch, retrying until it is written; once shutting down, give up after one more
+     * attempt and leave the batch to the journal.
+     */
+    private void writeWithRetries(List<Visit> batch) throws InterruptedException {
+        while (true) {
+            try {
+                writeBatch(batch, false);
+                break;
+            } catch (DataAccessException | TransactionException ex) {
+                if (!this.running) {
+                    LOGGER.error("Could not write {} visits on shutdown, they stay in journal {}", batch.size(),
+                        this.journal.getPath(), ex);
+                    return;
+                }
+                LOGGER.warn("Could not write {} visits, retrying in {} ms", batch.size(), RETRY_DELAY_MILLIS, ex);
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+        this.lock.lock();
+        try {
+            this.unwritten -= batch.size();
+            this.journal.written(batch);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not remove written visits from journal {}", this.journal.getPath(), ex);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Insert the visits of a batch that are not in the database yet, in one transaction. If the
+     * database refuses the batch as a whole (a visit of a pet that was removed in the meantime, for
+     * example), write the visits one by one and drop the ones it refuses.
+     */
+    private void writeBatch(List<Visit> batch, boolean replay) {
+        try {
+            this.transactionTemplate.execute(status -> insert(batch));
+        } catch (DataIntegrityViolationException ex) {
+            if (batch.size() == 1) {
+                LOGGER.error("Dropping visit {} of pet {} ({}): {}", batch.get(0).getId(), batch.get(0).getPetId(),
+                    replay ? "journal" : "queue", ex.getMostSpecificCause().getMessage());
+                return;
+            }
+            for (Visit visit : batch) {
+                writeBatch(Collections.singletonList(visit), replay);
+            }
+        }
+    }
+
+    private Void insert(List<Visit> batch) {
+        Set<Integer> existing = new HashSet<>(this.namedParameterJdbcTemplate.queryForList(
+            "SELECT id FROM visits WHERE id IN (:ids)",
+            Collections.singletonMap("ids", batch.stream().map(Visit::getId).collect(Collectors.toList())),
+            Integer.class));
+        List<Visit> visits = batch.stream()
+            .filter(visit -> !existing.contains(visit.getId()))
+            .collect(Collectors.toList());
+        if (visits.isEmpty()) {
+            return null;
+        }
+        this.jdbcTemplate.batchUpdate(Dataset.VISITS.getInsertStatement(), visits.stream()
+            .map(visit -> new Object[]{visit.getId(), visit.getDate() == null ? null : new Date(visit.getDate().getTime()),
+                visit.getDescription(), visit.getPetId()})
+            .collect(Collectors.toList()));
+
+        Map<Integer, List<Visit>> visitsByPet = visits.stream()
+            .collect(Collectors.groupingBy(Visit::getPetId, LinkedHashMap::new, Collectors.toList()));
+        visitsByPet.forEach((petId, petVisits) -> this.petVisitStats.visitsAdded(petId, petVisits.size(),
+            petVisits.stream().map(Visit::getDate).filter(date -> date != null).max(java.util.Date::compareTo)
+                .orElse(null)));
+        this.namedParameterJdbcTemplate.queryForList("SELECT DISTINCT owner_id FROM pets WHERE id IN (:petIds)",
+            Collections.singletonMap("petIds", visitsByPet.keySet()), Integer.class)
+            .forEach(this.resourceVersions::ownerChanged);
+        return null;
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Locale;
+
+/**
+ * Case-insensitive prefix search on owner last names.
+ * <p/>
+ * Every owner carries a search key next to its last name: the last name in lower case, stored in
+ * the {@code last_name_key} column, which is indexed together with the id and compared
+ * byte-for-byte on every database. Searching for a prefix of the key is then an index range scan,
+ * whatever the collation of {@code last_name}. Anything that writes owners without going through
+ * {@link Owner#setLastName(String)} must fill the column with {@link #key(String)}.
+ */
+public final class LastNameSearch {
+
+    /**
+     * Escape character of the {@code LIKE} patterns built by {@link #prefixPattern(String)}.
+     */
+    static final char ESCAPE = '!';
+
+    private LastNameSearch() {
+    }
+
+    /**
+     * @return the search key of the given last name, or {@code null} for {@code null}
+     */
+    public static String key(String lastName) {
+        return lastName == null ? null : lastName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return a {@code LIKE} pattern, escaped with {@link #ESCAPE}, that matches the keys of all
+     * last names starting with the given prefix
+     */
+    static String prefixPattern(String prefix) {
+        StringBuilder pattern = new StringBuilder(prefix.length() + 1);
+        for (char c : key(prefix).toCharArray()) {
+            if (c == ESCAPE || c == '%' || c == '_') {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+}
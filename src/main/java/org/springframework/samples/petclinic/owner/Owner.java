@@ -17,20 +17,24 @@ package org.springframework.samples.petclinic.owner;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.Digits;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.validator.constraints.NotEmpty;
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.samples.petclinic.model.Person;
 
@@ -43,8 +47,20 @@ import org.springframework.samples.petclinic.model.Person;
  * @author Michael Isvy
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "owners")
 public class Owner extends Person {
+
+    private static final Comparator<Pet> PETS_BY_NAME =
+        Comparator.comparing(Pet::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    /**
+     * Maintained by {@link #setLastName(String)}, see {@link LastNameSearch}.
+     */
+    @Column(name = "last_name_key")
+    private String lastNameKey;
+
     @Column(name = "address")
     @NotEmpty
     private String address;
@@ -59,8 +75,23 @@ public class Owner extends Person {
     private String telephone;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "owner")
+    @BatchSize(size = 20)
     private Set<Pet> pets;
 
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
+    /**
+     * {@link #getPets()}, sorted when first asked for after the set of pets changed.
+     */
+    private transient List<Pet> sortedPets;
+
+    @Override
+    public void setLastName(String lastName) {
+        super.setLastName(lastName);
+        this.lastNameKey = LastNameSearch.key(lastName);
+    }
 
     public String getAddress() {
         return this.address;
@@ -86,26 +117,41 @@ public class Owner extends Person {
         this.telephone = telephone;
     }
 
+    public Integer getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     protected Set<Pet> getPetsInternal() {
         if (this.pets == null) {
-            this.pets = new HashSet<>();
+            this.pets = new LinkedHashSet<>();
         }
         return this.pets;
     }
 
     protected void setPetsInternal(Set<Pet> pets) {
         this.pets = pets;
+        this.sortedPets = null;
     }
 
     public List<Pet> getPets() {
-        List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-        PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-        return Collections.unmodifiableList(sortedPets);
+        List<Pet> sortedPets = this.sortedPets;
+        if (sortedPets == null) {
+            List<Pet> pets = new ArrayList<>(getPetsInternal());
+            pets.sort(PETS_BY_NAME);
+            sortedPets = Collections.unmodifiableList(pets);
+            this.sortedPets = sortedPets;
+        }
+        return sortedPets;
     }
 
     public void addPet(Pet pet) {
         if (pet.isNew()) {
             getPetsInternal().add(pet);
+            this.sortedPets = null;
         }
         pet.setOwner(this);
     }
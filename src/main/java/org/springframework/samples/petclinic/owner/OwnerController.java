@@ -15,12 +15,18 @@
  */
 package org.springframework.samples.petclinic.owner;
 
-import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.system.FragmentCache;
+import org.springframework.samples.petclinic.system.ResourceVersions;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -29,6 +35,8 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
 /**
@@ -41,12 +49,17 @@ import org.springframework.web.servlet.ModelAndView;
 class OwnerController {
 
     private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
+    private static final int OWNERS_PAGE_SIZE = 20;
     private final OwnerRepository owners;
+    private final ResourceVersions versions;
+    private final FragmentCache fragments;
 
 
     @Autowired
-    public OwnerController(OwnerRepository clinicService) {
+    public OwnerController(OwnerRepository clinicService, ResourceVersions versions, FragmentCache fragments) {
         this.owners = clinicService;
+        this.versions = versions;
+        this.fragments = fragments;
     }
 
     @InitBinder
@@ -78,25 +91,34 @@ class OwnerController {
     }
 
     @RequestMapping(value = "/owners", method = RequestMethod.GET)
-    public String processFindForm(Owner owner, BindingResult result, Map<String, Object> model) {
+    public String processFindForm(Owner owner, BindingResult result, Map<String, Object> model,
+                                  @RequestParam(value = "afterLastName", defaultValue = "") String afterLastName,
+                                  @RequestParam(value = "afterId", defaultValue = "0") int afterId) {
 
         // allow parameterless GET request for /owners to return all records
         if (owner.getLastName() == null) {
             owner.setLastName(""); // empty string signifies broadest possible search
         }
+        boolean firstPage = afterLastName.isEmpty() && afterId == 0;
 
-        // find owners by last name
-        Collection<Owner> results = this.owners.findByLastName(owner.getLastName());
-        if (results.isEmpty()) {
+        // find one page of owners by last name, asking for one extra row to know whether there is a next page
+        List<OwnerSummary> results = this.owners.findSummariesByLastName(owner.getLastName(), afterLastName, afterId,
+            new PageRequest(0, OWNERS_PAGE_SIZE + 1));
+        if (results.isEmpty() && firstPage) {
             // no owners found
             result.rejectValue("lastName", "notFound", "not found");
             return "owners/findOwners";
-        } else if (results.size() == 1) {
+        } else if (results.size() == 1 && firstPage) {
             // 1 owner found
-            owner = results.iterator().next();
-            return "redirect:/owners/" + owner.getId();
+            return "redirect:/owners/" + results.get(0).getId();
         } else {
             // multiple owners found
+            if (results.size() > OWNERS_PAGE_SIZE) {
+                results = results.subList(0, OWNERS_PAGE_SIZE);
+                OwnerSummary last = results.get(OWNERS_PAGE_SIZE - 1);
+                model.put("nextLastName", last.getLastName());
+                model.put("nextId", last.getId());
+            }
             model.put("selections", results);
             return "owners/ownersList";
         }
@@ -110,13 +132,25 @@ class OwnerController {
     }
 
     @RequestMapping(value = "/owners/{ownerId}/edit", method = RequestMethod.POST)
-    public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result, @PathVariable("ownerId") int ownerId) {
+    public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result, @PathVariable("ownerId") int ownerId,
+                                         HttpServletResponse response) {
         if (result.hasErrors()) {
             return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
-        } else {
-            owner.setId(ownerId);
+        }
+        owner.setId(ownerId);
+        try {
+            if (owner.getVersion() == null) {
+                throw new OptimisticLockingFailureException("Owner " + ownerId + " submitted without a version");
+            }
             this.owners.save(owner);
             return "redirect:/owners/{ownerId}";
+        } catch (OptimisticLockingFailureException ex) {
+            // someone else saved the owner since the form was shown: show the form again, with the
+            // current version, so that submitting it once more overwrites their changes knowingly
+            owner.setVersion(this.owners.findById(ownerId).getVersion());
+            result.reject("concurrentUpdate", "Someone else changed this in the meantime");
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
         }
     }
 
@@ -124,12 +158,19 @@ class OwnerController {
      * Custom handler for displaying an owner.
      *
      * @param ownerId the ID of the owner to display
-     * @return a ModelMap with the model attributes for the view
+     * @return a ModelMap with the model attributes for the view, or {@code null} if the client
+     * already has the current version of the page
      */
     @RequestMapping("/owners/{ownerId}")
-    public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
+    public ModelAndView showOwner(@PathVariable("ownerId") int ownerId, ServletWebRequest request) {
+        if (this.versions.checkOwnerNotModified(request, ownerId)) {
+            return null;
+        }
         ModelAndView mav = new ModelAndView("owners/ownerDetails");
-        mav.addObject(this.owners.findById(ownerId));
+        // the owner is only read when its details are not rendered for its current version already
+        String key = "owner-" + ownerId + "-" + this.versions.getOwnerVersion(ownerId);
+        mav.addObject("ownerDetails", this.fragments.get(key, "owners/ownerDetails", "ownerDetails",
+            () -> Collections.singletonMap("owner", this.owners.findWithVisitsById(ownerId))));
         return mav;
     }
 
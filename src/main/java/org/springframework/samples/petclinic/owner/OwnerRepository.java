@@ -15,11 +15,19 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.samples.petclinic.visit.PetVisitStats;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -35,14 +43,104 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
 
     /**
      * Retrieve {@link Owner}s from the data store by last name, returning all owners
-     * whose last name <i>starts</i> with the given name.
+     * whose last name <i>starts</i> with the given name, ignoring case.
      * @param lastName Value to search for
      * @return a Collection of matching {@link Owner}s (or an empty Collection if none
      * found)
      */
-    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets WHERE owner.lastName LIKE :lastName%")
+    default Collection<Owner> findByLastName(String lastName) {
+        return findByLastNameKeyLike(LastNameSearch.prefixPattern(lastName));
+    }
+
+    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets " +
+        "WHERE owner.lastNameKey LIKE :pattern ESCAPE '" + LastNameSearch.ESCAPE + "'")
+    @Transactional(readOnly = true)
+    Collection<Owner> findByLastNameKeyLike(@Param("pattern") String pattern);
+
+    /**
+     * Retrieve one page of {@link Owner}s whose last name <i>starts</i> with the given name,
+     * ignoring case, ordered by last name and id. Pages are addressed by the (last name, id) of
+     * the last owner on the previous page rather than by offset, so the cost of fetching a page
+     * does not grow with its position in the result set.
+     * @param lastName Value to search for
+     * @param afterLastName last name of the last owner on the previous page ("" for the first page)
+     * @param afterId id of the last owner on the previous page (0 for the first page)
+     * @param pageable the maximum number of owners to return; only its page size is honoured
+     * @return a List of matching {@link Owner}s (or an empty List if none found)
+     */
+    default List<Owner> findByLastName(String lastName, String afterLastName, Integer afterId, Pageable pageable) {
+        return findByLastNameKeyLike(LastNameSearch.prefixPattern(lastName), LastNameSearch.key(afterLastName),
+            afterId, pageable);
+    }
+
+    @Query("SELECT owner FROM Owner owner WHERE owner.lastNameKey LIKE :pattern ESCAPE '" + LastNameSearch.ESCAPE + "' " +
+        "AND (owner.lastNameKey > :afterKey OR (owner.lastNameKey = :afterKey AND owner.id > :afterId)) " +
+        "ORDER BY owner.lastNameKey, owner.id")
     @Transactional(readOnly = true)
-    Collection<Owner> findByLastName(@Param("lastName") String lastName);
+    List<Owner> findByLastNameKeyLike(@Param("pattern") String pattern, @Param("afterKey") String afterKey,
+                                      @Param("afterId") Integer afterId, Pageable pageable);
+
+    /**
+     * Retrieve one page of {@link OwnerSummary owner summaries}, with the names and the
+     * {@link PetVisitStats visit statistics} of their pets, in the order and pages of
+     * {@link #findByLastName(String, String, Integer, Pageable)}. The page is read in a single query
+     * of plain columns, one row per pet, without loading any entities or visits.
+     * @param lastName Value to search for
+     * @param afterLastName last name of the last owner on the previous page ("" for the first page)
+     * @param afterId id of the last owner on the previous page (0 for the first page)
+     * @param pageable the maximum number of owners to return; only its page size is honoured
+     * @return a List of matching {@link OwnerSummary}s (or an empty List if none found)
+     */
+    default List<OwnerSummary> findSummariesByLastName(String lastName, String afterLastName, Integer afterId,
+                                                       Pageable pageable) {
+        List<OwnerSummary> summaries = new ArrayList<>();
+        OwnerSummary summary = null;
+        for (Object[] row : findSummaryRowsByLastNameKeyLike(LastNameSearch.prefixPattern(lastName),
+            LastNameSearch.key(afterLastName), afterId, pageable.getPageSize())) {
+            // ids are Integers on HSQLDB but Longs on MySQL, whose ids are unsigned
+            int id = ((Number) row[0]).intValue();
+            if (summary == null || summary.getId() != id) {
+                summary = new OwnerSummary(id, (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                    (String) row[5]);
+                summaries.add(summary);
+            }
+            if (row[6] != null) {
+                summary.addPet((String) row[6], row[7] == null ? 0 : ((Number) row[7]).longValue(), (Date) row[8]);
+            }
+        }
+        return summaries;
+    }
+
+    // the page of owners is limited in a derived table before joining their pets, which JPQL cannot express
+    @Query(value = "SELECT o.id, o.first_name, o.last_name, o.address, o.city, o.telephone, " +
+        "p.name, stats.visit_count, stats.last_visit_date " +
+        "FROM (SELECT id, first_name, last_name, last_name_key, address, city, telephone FROM owners " +
+        "WHERE last_name_key LIKE :pattern ESCAPE '" + LastNameSearch.ESCAPE + "' " +
+        "AND (last_name_key > :afterKey OR (last_name_key = :afterKey AND id > :afterId)) " +
+        "ORDER BY last_name_key, id LIMIT :limit) o " +
+        "LEFT JOIN pets p ON p.owner_id = o.id LEFT JOIN pet_visit_stats stats ON stats.pet_id = p.id " +
+        "ORDER BY o.last_name_key, o.id, LOWER(p.name), p.id", nativeQuery = true)
+    @Transactional(readOnly = true)
+    List<Object[]> findSummaryRowsByLastNameKeyLike(@Param("pattern") String pattern,
+                                                    @Param("afterKey") String afterKey,
+                                                    @Param("afterId") Integer afterId,
+                                                    @Param("limit") int limit);
+
+    /**
+     * Stream the {@link Owner}s whose last name <i>starts</i> with the given name, ignoring case,
+     * together with their pets, ordered by last name and id. Owners are read from the data store
+     * as the stream is consumed, so it must be consumed (and closed) within a transaction.
+     * @param lastName Value to search for
+     * @return a Stream of matching {@link Owner}s
+     */
+    default Stream<Owner> streamByLastName(String lastName) {
+        return streamByLastNameKeyLike(LastNameSearch.prefixPattern(lastName));
+    }
+
+    @Query("SELECT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type " +
+        "WHERE owner.lastNameKey LIKE :pattern ESCAPE '" + LastNameSearch.ESCAPE + "' " +
+        "ORDER BY owner.lastNameKey, owner.id")
+    Stream<Owner> streamByLastNameKeyLike(@Param("pattern") String pattern);
 
     /**
      * Retrieve an {@link Owner} from the data store by id.
@@ -51,12 +149,33 @@ public interface OwnerRepository extends Repository<Owner, Integer> {
      */
     @Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
     @Transactional(readOnly = true)
+    @Cacheable("owners")
     Owner findById(@Param("id") Integer id);
 
+    /**
+     * Return a reference to the {@link Owner} with the given id, without reading it from the data
+     * store until one of its properties other than the id is asked for.
+     * @param id the id of the owner
+     * @return a reference to the {@link Owner}
+     */
+    Owner getOne(Integer id);
+
+    /**
+     * Retrieve an {@link Owner} from the data store by id, together with its pets, their
+     * types and all of their visits, in a single query.
+     * @param id the id to search for
+     * @return the {@link Owner} if found
+     */
+    @Query("SELECT DISTINCT owner FROM Owner owner left join fetch owner.pets pet left join fetch pet.type " +
+        "left join fetch pet.visits WHERE owner.id =:id")
+    @Transactional(readOnly = true)
+    Owner findWithVisitsById(@Param("id") Integer id);
+
     /**
      * Save an {@link Owner} to the data store, either inserting or updating it.
      * @param owner the {@link Owner} to save
      */
+    @CacheEvict(cacheNames = "owners", key = "#p0.id")
     void save(Owner owner);
 
 
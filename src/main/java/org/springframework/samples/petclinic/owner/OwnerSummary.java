@@ -0,0 +1,97 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * What the owner list shows of an {@link Owner}: its name, address, city and telephone, the
+ * names of its pets, how many visits they had and when the last one was. Read as plain columns
+ * by {@link OwnerRepository#findSummariesByLastName}, so listing owners neither loads entities
+ * into the persistence context nor reads any visits.
+ */
+public class OwnerSummary {
+
+    private final Integer id;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String address;
+
+    private final String city;
+
+    private final String telephone;
+
+    private final List<String> petNames = new ArrayList<>();
+
+    private long visitCount;
+
+    private Date lastVisitDate;
+
+    public OwnerSummary(Integer id, String firstName, String lastName, String address, String city,
+                        String telephone) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.address = address;
+        this.city = city;
+        this.telephone = telephone;
+    }
+
+    public Integer getId() {
+        return this.id;
+    }
+
+    public String getFirstName() {
+        return this.firstName;
+    }
+
+    public String getLastName() {
+        return this.lastName;
+    }
+
+    public String getAddress() {
+        return this.address;
+    }
+
+    public String getCity() {
+        return this.city;
+    }
+
+    public String getTelephone() {
+        return this.telephone;
+    }
+
+    /**
+     * @return the names of the owner's pets, in the order of {@link Owner#getPets()}
+     */
+    public List<String> getPetNames() {
+        return Collections.unmodifiableList(this.petNames);
+    }
+
+    /**
+     * @return the number of visits of all of the owner's pets
+     */
+    public long getVisitCount() {
+        return this.visitCount;
+    }
+
+    /**
+     * @return the date of the last visit of any of the owner's pets, or {@code null} if they had none
+     */
+    public Date getLastVisitDate() {
+        return this.lastVisitDate;
+    }
+
+    void addPet(String petName, long visitCount, Date lastVisitDate) {
+        this.petNames.add(petName);
+        this.visitCount += visitCount;
+        if (lastVisitDate != null && (this.lastVisitDate == null || lastVisitDate.after(this.lastVisitDate))) {
+            this.lastVisitDate = lastVisitDate;
+        }
+    }
+
+}
@@ -17,25 +17,27 @@ package org.springframework.samples.petclinic.owner;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
 import org.springframework.samples.petclinic.visit.Visit;
@@ -48,9 +50,14 @@ import org.springframework.samples.petclinic.visit.Visit;
  * @author Sam Brannen
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
+    private static final Comparator<Visit> VISITS_BY_DATE_DESC =
+        Comparator.comparing(Visit::getDate, Comparator.nullsLast(Comparator.reverseOrder()));
+
     @Column(name = "birth_date")
     @Temporal(TemporalType.DATE)
     @DateTimeFormat(pattern = "yyyy/MM/dd")
@@ -64,9 +71,18 @@ public class Pet extends NamedEntity {
     @JoinColumn(name = "owner_id")
     private Owner owner;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "petId", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "petId")
     private Set<Visit> visits = new LinkedHashSet<>();
 
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
+    /**
+     * {@link #getVisits()}, sorted when first asked for after the set of visits changed.
+     */
+    private transient List<Visit> sortedVisits;
+
     public void setBirthDate(Date birthDate) {
         this.birthDate = birthDate;
     }
@@ -91,6 +107,14 @@ public class Pet extends NamedEntity {
         this.owner = owner;
     }
 
+    public Integer getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     protected Set<Visit> getVisitsInternal() {
         if (this.visits == null) {
             this.visits = new HashSet<>();
@@ -100,17 +124,23 @@ public class Pet extends NamedEntity {
 
     protected void setVisitsInternal(Set<Visit> visits) {
         this.visits = visits;
+        this.sortedVisits = null;
     }
 
     public List<Visit> getVisits() {
-        List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-        PropertyComparator.sort(sortedVisits,
-                new MutableSortDefinition("date", false, false));
-        return Collections.unmodifiableList(sortedVisits);
+        List<Visit> sortedVisits = this.sortedVisits;
+        if (sortedVisits == null) {
+            List<Visit> visits = new ArrayList<>(getVisitsInternal());
+            visits.sort(VISITS_BY_DATE_DESC);
+            sortedVisits = Collections.unmodifiableList(visits);
+            this.sortedVisits = sortedVisits;
+        }
+        return sortedVisits;
     }
 
     public void addVisit(Visit visit) {
         getVisitsInternal().add(visit);
+        this.sortedVisits = null;
         visit.setPetId(this.getId());
     }
 
@@ -17,9 +17,11 @@ package org.springframework.samples.petclinic.owner;
 
 import java.util.Collection;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
@@ -55,14 +57,19 @@ class PetController {
         return this.pets.findPetTypes();
     }
 
+    /**
+     * The owner only as a reference: a new or updated pet needs no more than its id, and the
+     * forms read its name (and nothing else, in particular not its pets) when they render.
+     */
     @ModelAttribute("owner")
     public Owner findOwner(@PathVariable("ownerId") int ownerId) {
-        return this.owners.findById(ownerId);
+        return this.owners.getOne(ownerId);
     }
 
     @InitBinder("owner")
     public void initOwnerBinder(WebDataBinder dataBinder) {
-        dataBinder.setDisallowedFields("id");
+        // the owner is a reference only, all of the parameters belong to the pet
+        dataBinder.setDisallowedFields("*");
     }
 
     @InitBinder("pet")
@@ -73,21 +80,23 @@ class PetController {
     @RequestMapping(value = "/pets/new", method = RequestMethod.GET)
     public String initCreationForm(Owner owner, ModelMap model) {
         Pet pet = new Pet();
-        owner.addPet(pet);
+        pet.setOwner(owner);
         model.put("pet", pet);
         return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
     }
 
     @RequestMapping(value = "/pets/new", method = RequestMethod.POST)
-    public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model) {
-        if (StringUtils.hasLength(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null){
+    public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result, ModelMap model,
+                                      @PathVariable("ownerId") int ownerId) {
+        if (StringUtils.hasLength(pet.getName()) && pet.isNew()
+            && this.pets.existsByOwnerIdAndNameIgnoreCase(ownerId, pet.getName())) {
             result.rejectValue("name", "duplicate", "already exists");
         }
+        pet.setOwner(owner);
         if (result.hasErrors()) {
             model.put("pet", pet);
             return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
         } else {
-            owner.addPet(pet);
             this.pets.save(pet);
             return "redirect:/owners/{ownerId}";
         }
@@ -101,15 +110,28 @@ class PetController {
     }
 
     @RequestMapping(value = "/pets/{petId}/edit", method = RequestMethod.POST)
-    public String processUpdateForm(@Valid Pet pet, BindingResult result, Owner owner, ModelMap model) {
+    public String processUpdateForm(@Valid Pet pet, BindingResult result, Owner owner, ModelMap model,
+                                    @PathVariable("petId") int petId, HttpServletResponse response) {
         if (result.hasErrors()) {
             pet.setOwner(owner);
             model.put("pet", pet);
             return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
-        } else {
-            owner.addPet(pet);
+        }
+        try {
+            if (pet.getVersion() == null) {
+                throw new OptimisticLockingFailureException("Pet " + petId + " submitted without a version");
+            }
+            pet.setOwner(owner);
             this.pets.save(pet);
             return "redirect:/owners/{ownerId}";
+        } catch (OptimisticLockingFailureException ex) {
+            // see OwnerController.processUpdateOwnerForm
+            pet.setVersion(this.pets.findById(petId).getVersion());
+            pet.setOwner(owner);
+            result.reject("concurrentUpdate", "Someone else changed this in the meantime");
+            model.put("pet", pet);
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
         }
     }
 
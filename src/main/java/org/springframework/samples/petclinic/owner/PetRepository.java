@@ -17,8 +17,15 @@ package org.springframework.samples.petclinic.owner;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -33,25 +40,63 @@ import org.springframework.transaction.annotation.Transactional;
 public interface PetRepository extends Repository<Pet, Integer> {
 
     /**
-     * Retrieve all {@link PetType}s from the data store.
+     * Retrieve all {@link PetType}s from the data store. Besides the {@code petTypes} cache, the
+     * result is kept in the Hibernate query cache, which drops it as soon as the types table changes.
      * @return a Collection of {@link PetType}s.
      */
     @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Transactional(readOnly = true)
+    @Cacheable("petTypes")
     List<PetType> findPetTypes();
 
+    /**
+     * Retrieve all {@link PetType}s from the data store itself, bypassing both caches of
+     * {@link #findPetTypes()}, for callers that keep a copy of their own and must not load it from
+     * a cache that is only evicted after they were told of a change.
+     * @return a Collection of {@link PetType}s.
+     */
+    @Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+    @Transactional(readOnly = true)
+    List<PetType> findCurrentPetTypes();
+
     /**
      * Retrieve a {@link Pet} from the data store by id.
      * @param id the id to search for
      * @return the {@link Pet} if found
      */
     @Transactional(readOnly = true)
+    @Cacheable("pets")
     Pet findById(Integer id);
 
     /**
-     * Save a {@link Pet} to the data store, either inserting or updating it.
+     * Tell whether an owner has a pet of the given name already, ignoring case, without loading
+     * the owner or any of its pets.
+     * @param ownerId the id of the owner
+     * @param name the name to look for
+     * @return {@code true} if the owner has a pet of that name
+     */
+    @Transactional(readOnly = true)
+    boolean existsByOwnerIdAndNameIgnoreCase(Integer ownerId, String name);
+
+    /**
+     * Retrieve the id of the owner of a {@link Pet}, without loading the pet.
+     * @param id the id of the pet
+     * @return the id of its owner, or {@code null} if there is no such pet
+     */
+    @Query("SELECT pet.owner.id FROM Pet pet WHERE pet.id = :id")
+    @Transactional(readOnly = true)
+    Integer findOwnerIdById(@Param("id") Integer id);
+
+    /**
+     * Save a {@link Pet} to the data store, either inserting or updating it. The owner is
+     * evicted as well, since its cached copy holds the pet.
      * @param pet the {@link Pet} to save
      */
+    @Caching(evict = {
+        @CacheEvict(cacheNames = "pets", key = "#p0.id"),
+        @CacheEvict(cacheNames = "owners", key = "#p0.owner.id")
+    })
     void save(Pet pet);
 
 }
@@ -17,12 +17,15 @@ package org.springframework.samples.petclinic.owner;
 
 
 import java.text.ParseException;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.Formatter;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * Instructs Spring MVC on how to parse and print elements of type 'PetType'. Starting from Spring 3.0, Formatters have
@@ -30,6 +33,11 @@ import org.springframework.stereotype.Component;
  * Spring ref doc: http://static.springsource.org/spring/docs/current/spring-framework-reference/html/validation.html#format-Formatter-SPI
  * - A nice blog entry from Gordon Dickens: http://gordondickens.com/wordpress/2010/09/30/using-spring-3-0-custom-type-converter/
  * <p/>
+ * Pet types are looked up by name in an index that is loaded on first use and dropped whenever a
+ * {@link PetTypesChangedEvent} is published, so that binding a pet form does not query the data store.
+ * The index is read past the caches, and an index whose load overlapped with a change is used for
+ * the call that loaded it only, so that it never outlives the types it was loaded from.
+ * <p/>
  *
  * @author Mark Fisher
  * @author Juergen Hoeller
@@ -40,6 +48,12 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
     private final PetRepository pets;
 
+    private volatile Map<String, PetType> petTypesByName;
+
+    /**
+     * Number of changes seen so far; guarded by this.
+     */
+    private long generation;
 
     @Autowired
     public PetTypeFormatter(PetRepository pets) {
@@ -53,13 +67,42 @@ public class PetTypeFormatter implements Formatter<PetType> {
 
     @Override
     public PetType parse(String text, Locale locale) throws ParseException {
-        Collection<PetType> findPetTypes = this.pets.findPetTypes();
-        for (PetType type : findPetTypes) {
-            if (type.getName().equals(text)) {
-                return type;
+        PetType type = getPetTypesByName().get(text);
+        if (type == null) {
+            throw new ParseException("type not found: " + text, 0);
+        }
+        return type;
+    }
+
+    /**
+     * Drop the pet type index once the change that triggered the event is committed. The next
+     * call to {@link #parse} reloads it.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPetTypesChanged(PetTypesChangedEvent event) {
+        this.generation++;
+        this.petTypesByName = null;
+    }
+
+    private Map<String, PetType> getPetTypesByName() {
+        Map<String, PetType> index = this.petTypesByName;
+        if (index == null) {
+            long loading;
+            synchronized (this) {
+                loading = this.generation;
+            }
+            index = new HashMap<>();
+            for (PetType type : this.pets.findCurrentPetTypes()) {
+                index.put(type.getName(), type);
+            }
+            index = Collections.unmodifiableMap(index);
+            synchronized (this) {
+                if (this.generation == loading) {
+                    this.petTypesByName = index;
+                }
             }
         }
-        throw new ParseException("type not found: " + text, 0);
+        return index;
     }
 
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2002-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published whenever {@link PetType}s are added, renamed or removed, so that components holding
+ * on to them (such as {@link PetTypeFormatter}) can reload.
+ */
+public class PetTypesChangedEvent extends ApplicationEvent {
+
+    public PetTypesChangedEvent(Object source) {
+        super(source);
+    }
+
+}
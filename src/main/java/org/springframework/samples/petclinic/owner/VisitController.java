@@ -19,7 +19,13 @@ import java.util.Map;
 
 import javax.validation.Valid;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.bulk.VisitWriteBehind;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
@@ -41,14 +47,21 @@ import org.springframework.web.bind.annotation.RequestMethod;
 @Controller
 class VisitController {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisitController.class);
+
     private final VisitRepository visits;
     private final PetRepository pets;
+    private final PetVisitStatsRepository visitStats;
+    private final VisitWriteBehind writeBehind;
 
 
     @Autowired
-    public VisitController(VisitRepository visits, PetRepository pets) {
+    public VisitController(VisitRepository visits, PetRepository pets, PetVisitStatsRepository visitStats,
+                           ObjectProvider<VisitWriteBehind> writeBehind) {
         this.visits = visits;
         this.pets = pets;
+        this.visitStats = visitStats;
+        this.writeBehind = writeBehind.getIfAvailable();
     }
 
     @InitBinder
@@ -58,36 +71,53 @@ class VisitController {
 
     /**
      * Called before each and every @RequestMapping annotated method.
-     * 2 goals:
-     * - Make sure we always have fresh data
-     * - Since we do not use the session scope, make sure that Pet object always has an id
-     * (Even though id is not part of the form fields)
+     * Since we do not use the session scope, make sure that the Visit always has the id of its Pet
+     * (even though it is not part of the form fields). The Pet itself is not loaded: saving a visit
+     * needs no more than its id.
      *
      * @param petId
-     * @return Pet
+     * @return Visit
      */
     @ModelAttribute("visit")
-    public Visit loadPetWithVisit(@PathVariable("petId") int petId, Map<String, Object> model) {
-        Pet pet = this.pets.findById(petId);
-        model.put("pet", pet);
+    public Visit newVisit(@PathVariable("petId") int petId) {
         Visit visit = new Visit();
-        pet.addVisit(visit);
+        visit.setPetId(petId);
         return visit;
     }
 
-    // Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is called
+    /**
+     * Put the Pet and its previous visits into the model, for the form to show. The previous visits
+     * are read separately, as the Pet may be a detached copy from the cache.
+     */
+    private String showForm(int petId, Map<String, Object> model) {
+        model.put("pet", this.pets.findById(petId));
+        model.put("visits", this.visits.findByPetIdOrderByDateDesc(petId));
+        return "pets/createOrUpdateVisitForm";
+    }
+
+    // Spring MVC calls method newVisit(...) before initNewVisitForm is called
     @RequestMapping(value = "/owners/*/pets/{petId}/visits/new", method = RequestMethod.GET)
     public String initNewVisitForm(@PathVariable("petId") int petId, Map<String, Object> model) {
-        return "pets/createOrUpdateVisitForm";
+        return showForm(petId, model);
     }
 
-    // Spring MVC calls method loadPetWithVisit(...) before processNewVisitForm is called
+    // Spring MVC calls method newVisit(...) before processNewVisitForm is called
     @RequestMapping(value = "/owners/{ownerId}/pets/{petId}/visits/new", method = RequestMethod.POST)
-    public String processNewVisitForm(@Valid Visit visit, BindingResult result) {
+    public String processNewVisitForm(@Valid Visit visit, BindingResult result, @PathVariable("petId") int petId,
+                                      Map<String, Object> model) {
         if (result.hasErrors()) {
-            return "pets/createOrUpdateVisitForm";
+            return showForm(petId, model);
+        } else if (this.writeBehind != null && this.writeBehind.add(visit)) {
+            // written with the next batch, together with its pet's statistics
+            return "redirect:/owners/{ownerId}";
         } else {
             this.visits.save(visit);
+            try {
+                this.visitStats.visitAdded(visit);
+            } catch (DataAccessException ex) {
+                // the visit is saved: its pet's statistics catch up with the next rebuild
+                LOGGER.warn("Could not count visit {} of pet {}", visit.getId(), visit.getPetId(), ex);
+            }
             return "redirect:/owners/{ownerId}";
         }
     }
@@ -0,0 +1,72 @@
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.WebMvcRegistrationsAdapter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * Opt-in request execution mode ({@code petclinic.async.enabled=true}) in which the controller
+ * methods run on a dedicated executor, see {@link OffloadingRequestMappingHandlerAdapter}. The
+ * servlet container threads then only parse requests and render views, while the blocking
+ * database work waits on threads of its own.
+ * <p/>
+ * The executor has as many threads as the JDBC pool has connections by default: more threads
+ * would only wait for a connection. Calls beyond that wait in the executor queue, up to
+ * {@code petclinic.async.queue-capacity}; past that, requests wait for at most
+ * {@code petclinic.async.acquire-timeout-ms} and are then rejected with 503.
+ */
+@Configuration
+@ConditionalOnProperty(name = "petclinic.async.enabled", havingValue = "true")
+class AsyncExecutionConfig extends WebMvcConfigurerAdapter {
+
+    private final int threads;
+
+    private final int queueCapacity;
+
+    private final long acquireTimeoutMillis;
+
+    private final long requestTimeoutMillis;
+
+    public AsyncExecutionConfig(@Value("${petclinic.async.threads:${spring.datasource.tomcat.max-active:100}}") int threads,
+                                @Value("${petclinic.async.queue-capacity:200}") int queueCapacity,
+                                @Value("${petclinic.async.acquire-timeout-ms:100}") long acquireTimeoutMillis,
+                                @Value("${petclinic.async.request-timeout-ms:30000}") long requestTimeoutMillis) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor controllerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(this.threads);
+        executor.setMaxPoolSize(this.threads);
+        // the adapter bounds the number of pending calls, so the queue never overflows
+        executor.setThreadNamePrefix("controller-");
+        return executor;
+    }
+
+    @Bean
+    public WebMvcRegistrationsAdapter offloadingRegistrations() {
+        return new WebMvcRegistrationsAdapter() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return new OffloadingRequestMappingHandlerAdapter(threads + queueCapacity, acquireTimeoutMillis);
+            }
+        };
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(controllerExecutor());
+        configurer.setDefaultTimeout(this.requestTimeoutMillis);
+    }
+
+}
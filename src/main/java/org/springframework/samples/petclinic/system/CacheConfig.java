@@ -1,8 +1,17 @@
 package org.springframework.samples.petclinic.system;
 
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
 import javax.cache.configuration.Configuration;
-import javax.cache.configuration.MutableConfiguration;
 
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
+import org.ehcache.impl.copy.SerializingCopier;
+import org.ehcache.jsr107.Eh107Configuration;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -10,6 +19,11 @@ import org.springframework.context.annotation.Profile;
 
 /**
  * Cache could be disabled in unit test.
+ * <p/>
+ * Every region is bounded in size and expires its entries after a fixed time to live. Values are
+ * stored by copy, so that callers mutating a cached entity (adding a pet to an owner, for example)
+ * never change what the next caller gets. Statistics are enabled so that hit and miss ratios show
+ * up under the actuator metrics.
  */
 @org.springframework.context.annotation.Configuration
 @EnableCaching
@@ -19,14 +33,29 @@ class CacheConfig {
     @Bean
     public JCacheManagerCustomizer cacheManagerCustomizer() {
         return cm -> {
-            Configuration<Object, Object> cacheConfiguration = createCacheConfiguration();
-            cm.createCache("vets", cacheConfiguration);
+            createCache(cm, "vets", 10, 60);
+            createCache(cm, "petTypes", 10, 60);
+            createCache(cm, "owners", 1000, 10);
+            createCache(cm, "pets", 1000, 10);
+            // rendered page fragments (FragmentCache), keyed by version so they never go stale
+            createCache(cm, "fragments", 500, 60);
         };
     }
 
-    private Configuration<Object, Object> createCacheConfiguration() {
-        // Create a cache using infinite heap. A real application will want to use an
-        // implementation dependent configuration that will better fit your needs
-        return new MutableConfiguration<>().setStatisticsEnabled(true);
+    private void createCache(CacheManager cm, String name, long heapEntries, long timeToLiveMinutes) {
+        // the JCache CacheManager is shared JVM-wide, so another application context may have created it already
+        if (cm.getCache(name) == null) {
+            cm.createCache(name, createCacheConfiguration(heapEntries, timeToLiveMinutes));
+            cm.enableStatistics(name, true);
+        }
+    }
+
+    private Configuration<Object, Object> createCacheConfiguration(long heapEntries, long timeToLiveMinutes) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(heapEntries))
+                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(timeToLiveMinutes, TimeUnit.MINUTES)))
+                .add(new DefaultCopierConfiguration<>(SerializingCopier.asCopierClass(),
+                    DefaultCopierConfiguration.Type.VALUE)));
     }
 }
@@ -0,0 +1,48 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.Properties;
+
+import javax.cache.CacheManager;
+import javax.cache.configuration.Configuration;
+import javax.cache.spi.CachingProvider;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.JCacheRegionFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+
+/**
+ * Hibernate second-level cache regions in JCache (Ehcache), registered through
+ * {@code hibernate.cache.region.factory_class}.
+ * <p/>
+ * Unlike the plain {@link JCacheRegionFactory} it
+ * <ul>
+ * <li>bounds every region to {@value #HEAP_ENTRIES} entries on heap, stored by reference since
+ * Hibernate caches disassembled state rather than the entities themselves;</li>
+ * <li>keeps the regions in a cache manager of their own rather than the JVM-wide default one of
+ * {@link CacheConfig}, so that application contexts (in tests, each with its own database) never
+ * see each other's rows, and closing the session factory leaves the other caches alone.</li>
+ * </ul>
+ */
+public class ClinicCacheRegionFactory extends JCacheRegionFactory {
+
+    private static final long HEAP_ENTRIES = 10_000;
+
+    @Override
+    protected CacheManager getCacheManager(Properties properties) {
+        CachingProvider provider = getCachingProvider(properties);
+        // the provider keeps one cache manager per class loader
+        ClassLoader classLoader = new ClassLoader(provider.getDefaultClassLoader()) {
+        };
+        return provider.getCacheManager(provider.getDefaultURI(), classLoader);
+    }
+
+    @Override
+    protected Configuration<Object, Object> newDefaultConfig(Properties properties, CacheDataDescription metadata) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(HEAP_ENTRIES)));
+    }
+
+}
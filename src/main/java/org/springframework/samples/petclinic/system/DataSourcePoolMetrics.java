@@ -0,0 +1,56 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * The state of the JDBC connection pool (configured by the {@code spring.datasource.tomcat.*}
+ * properties), published at {@code /manage/metrics} next to the {@code datasource.primary.active}
+ * and {@code .usage} of the actuator:
+ * <ul>
+ * <li>{@code datasource.primary.waiting}: threads waiting for a connection because all
+ * {@code .max} connections are in use, the first sign of an undersized pool</li>
+ * <li>{@code datasource.primary.idle}, {@code .size} and {@code .max}: idle, open and allowed
+ * connections</li>
+ * <li>{@code datasource.primary.borrowed} and {@code .created}: connections handed out and opened
+ * since startup; the more borrowed per created, the better the pool does its job</li>
+ * </ul>
+ * Nothing is published for a data source that is not a Tomcat JDBC pool.
+ */
+@Component
+class DataSourcePoolMetrics implements PublicMetrics {
+
+    private static final String PREFIX = "datasource.primary.";
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public DataSourcePoolMetrics(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        if (!(this.dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource)) {
+            return metrics;
+        }
+        org.apache.tomcat.jdbc.pool.DataSource pool = (org.apache.tomcat.jdbc.pool.DataSource) this.dataSource;
+        metrics.add(new Metric<>(PREFIX + "waiting", pool.getWaitCount()));
+        metrics.add(new Metric<>(PREFIX + "idle", pool.getIdle()));
+        metrics.add(new Metric<>(PREFIX + "size", pool.getSize()));
+        metrics.add(new Metric<>(PREFIX + "max", pool.getMaxActive()));
+        metrics.add(new Metric<>(PREFIX + "borrowed", pool.getBorrowedCount()));
+        metrics.add(new Metric<>(PREFIX + "created", pool.getCreatedCount()));
+        return metrics;
+    }
+
+}
@@ -0,0 +1,95 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring4.expression.ThymeleafEvaluationContext;
+
+/**
+ * Rendered HTML of the fragments of the pages read most (the owner details and the vet list), so
+ * that a page whose data did not change is put together from what was rendered before, without
+ * reading the data again. Fragments are keyed by the resource and its version in
+ * {@link ResourceVersions}: a change moves the version on, so no fragment is ever evicted
+ * explicitly, and fragments of old versions make room as the {@code fragments} cache of the
+ * {@code production} profile reaches its size. Hits and misses show up as the
+ * {@code cache.fragments.*} metrics.
+ * <p/>
+ * Fragments are rendered without the request, so that they look the same for every client, and
+ * may therefore only contain relative links. Without the {@code fragments} cache, every fragment
+ * is rendered on every request.
+ */
+@Component
+public class FragmentCache {
+
+    private final ITemplateEngine templateEngine;
+
+    private final ApplicationContext applicationContext;
+
+    private final ConversionService conversionService;
+
+    private final Cache cache;
+
+    @Autowired
+    public FragmentCache(ITemplateEngine templateEngine, ApplicationContext applicationContext,
+                         @Qualifier("mvcConversionService") ObjectProvider<ConversionService> conversionService,
+                         ObjectProvider<CacheManager> cacheManager) {
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        // absent outside of a web application, e.g. in the benchmarks that only use the repositories
+        this.conversionService = conversionService.getIfAvailable();
+        CacheManager manager = cacheManager.getIfAvailable();
+        this.cache = manager == null ? null : manager.getCache("fragments");
+    }
+
+    /**
+     * Return a fragment as rendered for the given key, rendering it first if it is not cached.
+     *
+     * @param key the resource the fragment shows, including its version
+     * @param template the template that holds the fragment
+     * @param fragment the name of the fragment ({@code th:fragment})
+     * @param variables the variables to render the fragment with, only asked for if it has to be
+     * rendered; read the version in the key before reading these, so that a fragment is never older
+     * than its key
+     * @return the rendered HTML of the fragment
+     */
+    public String get(String key, String template, String fragment, Supplier<Map<String, Object>> variables) {
+        if (this.cache != null) {
+            String html = this.cache.get(key, String.class);
+            if (html != null) {
+                return html;
+            }
+        }
+        String html = render(template, fragment, variables.get());
+        if (this.cache != null) {
+            this.cache.put(key, html);
+        }
+        return html;
+    }
+
+    /**
+     * Render a fragment without caching it, for the pages that are read too rarely, or are keyed by
+     * too many values, to be worth a place in the cache.
+     *
+     * @return the rendered HTML of the fragment
+     */
+    public String render(String template, String fragment, Map<String, Object> variables) {
+        Context context = new Context(LocaleContextHolder.getLocale(), variables);
+        // convert values like the views do, e.g. the dates for #calendars
+        context.setVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+            new ThymeleafEvaluationContext(this.applicationContext, this.conversionService));
+        return this.templateEngine.process(template, Collections.singleton(fragment), context);
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hit, miss and put counts and the size of every Hibernate second-level cache region (see
+ * {@link ClinicCacheRegionFactory}), plus the totals of the query cache, published at
+ * {@code /manage/metrics} as {@code hibernate.cache.<region>.*} and
+ * {@code hibernate.query-cache.*}. Regions are named after their entity or collection, without
+ * the application package, e.g. {@code vet.Vet} or {@code vet.Vet.specialties}.
+ */
+@Component
+class HibernateCacheMetrics implements PublicMetrics {
+
+    private static final String PACKAGE_PREFIX = "org.springframework.samples.petclinic.";
+
+    private final Statistics statistics;
+
+    @Autowired
+    public HibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        if (!this.statistics.isStatisticsEnabled()) {
+            return metrics;
+        }
+        for (String regionName : this.statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics region = this.statistics.getSecondLevelCacheStatistics(regionName);
+            if (region != null) {
+                String prefix = "hibernate.cache." + shortName(regionName);
+                metrics.add(new Metric<>(prefix + ".hit", region.getHitCount()));
+                metrics.add(new Metric<>(prefix + ".miss", region.getMissCount()));
+                metrics.add(new Metric<>(prefix + ".put", region.getPutCount()));
+                metrics.add(new Metric<>(prefix + ".size", region.getElementCountInMemory()));
+            }
+        }
+        metrics.add(new Metric<>("hibernate.query-cache.hit", this.statistics.getQueryCacheHitCount()));
+        metrics.add(new Metric<>("hibernate.query-cache.miss", this.statistics.getQueryCacheMissCount()));
+        metrics.add(new Metric<>("hibernate.query-cache.put", this.statistics.getQueryCachePutCount()));
+        return metrics;
+    }
+
+    private static String shortName(String regionName) {
+        return regionName.startsWith(PACKAGE_PREFIX) ? regionName.substring(PACKAGE_PREFIX.length()) : regionName;
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.springframework.samples.petclinic.system;
+
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Request timers and SQL statement histograms, see {@link RequestMetricsInterceptor}. Together
+ * with the repository timers of {@link RepositoryMetricsAspect}, the cache statistics of
+ * {@link CacheConfig} and the region statistics of {@link HibernateCacheMetrics} they are
+ * published with their percentiles at {@code /manage/metrics}.
+ * <p/>
+ * The registry is absent in sliced tests (such as {@code @WebMvcTest}), which then run without
+ * the interceptor.
+ */
+@Configuration
+class MetricsConfig extends WebMvcConfigurerAdapter {
+
+    private final ObjectProvider<MetricRegistry> registry;
+
+    public MetricsConfig(ObjectProvider<MetricRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        MetricRegistry metricRegistry = this.registry.getIfAvailable();
+        if (metricRegistry != null) {
+            registry.addInterceptor(new RequestMetricsInterceptor(metricRegistry));
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ServletInvocableHandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Runs the controller methods of the application on the MVC async executor instead of the
+ * servlet container thread. Arguments are still resolved (and bound and validated) on the
+ * container thread. The method call itself is handed to the executor as a {@link WebAsyncTask},
+ * which frees the container thread until the result is ready. The view is then rendered on a
+ * container thread again, as for any other asynchronous request. {@code @ModelAttribute} methods
+ * keep running on the container thread.
+ * <p/>
+ * At most {@code maxPending} calls run or wait for the executor at any time. A request that cannot
+ * get a slot within {@code acquireTimeoutMillis} fails fast with 503 Service Unavailable rather
+ * than queueing without bound.
+ */
+class OffloadingRequestMappingHandlerAdapter extends RequestMappingHandlerAdapter {
+
+    private static final String APPLICATION_PACKAGE = "org.springframework.samples.petclinic.";
+
+    private final Semaphore pending;
+
+    private final long acquireTimeoutMillis;
+
+    OffloadingRequestMappingHandlerAdapter(int maxPending, long acquireTimeoutMillis) {
+        this.pending = new Semaphore(maxPending);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        if (!handlerMethod.getBeanType().getName().startsWith(APPLICATION_PACKAGE) || isAsync(handlerMethod)) {
+            return super.createInvocableHandlerMethod(handlerMethod);
+        }
+        return new OffloadingHandlerMethod(handlerMethod);
+    }
+
+    private static boolean isAsync(HandlerMethod handlerMethod) {
+        ResolvableType returnType = ResolvableType.forMethodParameter(handlerMethod.getReturnType());
+        Class<?> type = returnType.resolve(Object.class);
+        if (ResponseEntity.class.isAssignableFrom(type)) {
+            type = returnType.getGeneric(0).resolve(Object.class);
+        }
+        return Callable.class.isAssignableFrom(type) || WebAsyncTask.class.isAssignableFrom(type)
+            || DeferredResult.class.isAssignableFrom(type) || CompletionStage.class.isAssignableFrom(type)
+            || ResponseBodyEmitter.class.isAssignableFrom(type) || StreamingResponseBody.class.isAssignableFrom(type);
+    }
+
+    private class OffloadingHandlerMethod extends ServletInvocableHandlerMethod {
+
+        OffloadingHandlerMethod(HandlerMethod handlerMethod) {
+            super(handlerMethod);
+        }
+
+        @Override
+        protected Object doInvoke(Object... args) throws Exception {
+            if (!pending.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ServerBusyException();
+            }
+            long[] statementCounter = SqlStatementCounter.counter();
+            // the slot is given back when the call is done, not when the request completes: a request
+            // that timed out leaves its call running (or waiting) on the executor all the same
+            return new WebAsyncTask<>(() -> {
+                long[] previous = SqlStatementCounter.useCounter(statementCounter);
+                try {
+                    return OffloadingHandlerMethod.super.doInvoke(args);
+                } finally {
+                    SqlStatementCounter.useCounter(previous);
+                    pending.release();
+                }
+            });
+        }
+    }
+
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Too many requests in progress")
+    static class ServerBusyException extends RuntimeException {
+
+        ServerBusyException() {
+            super("Too many requests in progress", null, false, false);
+        }
+    }
+
+}
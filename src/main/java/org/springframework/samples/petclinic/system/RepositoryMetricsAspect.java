@@ -0,0 +1,43 @@
+package org.springframework.samples.petclinic.system;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every call to a Spring Data repository of the application, as seen by its caller (so
+ * including cache hits), e.g. {@code timer.repository.OwnerRepository.findById}. Ordered first so
+ * that it wraps the caching and transaction advice.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class RepositoryMetricsAspect {
+
+    private final MetricRegistry registry;
+
+    @Autowired
+    public RepositoryMetricsAspect(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* org.springframework.samples.petclinic..*Repository.*(..)) "
+        + "&& this(org.springframework.data.repository.Repository)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = "timer.repository." + joinPoint.getSignature().getDeclaringType().getSimpleName()
+            + "." + joinPoint.getSignature().getName();
+        Timer.Context context = registry.timer(name).time();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            context.stop();
+        }
+    }
+
+}
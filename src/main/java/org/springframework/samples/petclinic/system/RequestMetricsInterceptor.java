@@ -0,0 +1,63 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Times every request handled by a controller method, and records how many SQL statements it
+ * ran, per HTTP method and URL pattern. {@code GET /owners/{ownerId}} is recorded as
+ * {@code timer.request.GET.owners.ownerId} and {@code histogram.request.GET.owners.ownerId.sql}.
+ */
+class RequestMetricsInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String START_TIME = RequestMetricsInterceptor.class.getName() + ".startTime";
+
+    private static final String START_STATEMENTS = RequestMetricsInterceptor.class.getName() + ".startStatements";
+
+    private final MetricRegistry registry;
+
+    RequestMetricsInterceptor(MetricRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // an asynchronous request passes here again when it is dispatched back with its result
+        if (handler instanceof HandlerMethod && request.getAttribute(START_TIME) == null) {
+            request.setAttribute(START_TIME, System.nanoTime());
+            request.setAttribute(START_STATEMENTS, SqlStatementCounter.current());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Long startTime = (Long) request.getAttribute(START_TIME);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (startTime == null || pattern == null) {
+            return;
+        }
+        String key = "request." + request.getMethod() + "." + toKey(pattern.toString());
+        registry.timer("timer." + key).update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        registry.histogram("histogram." + key + ".sql")
+            .update(SqlStatementCounter.current() - (Long) request.getAttribute(START_STATEMENTS));
+    }
+
+    /**
+     * "/owners/{ownerId}/pets/{petId:\\d+}" becomes "owners.ownerId.pets.petId".
+     */
+    static String toKey(String pattern) {
+        String key = pattern.replaceAll("\\{([^}:]+)(:[^}]*)?}", "$1").replace('/', '.');
+        key = key.replaceAll("^\\.+|\\.+$", "");
+        return key.isEmpty() ? "root" : key;
+    }
+
+}
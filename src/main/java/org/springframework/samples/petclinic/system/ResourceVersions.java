@@ -0,0 +1,128 @@
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Versions of the pages and documents clients poll, for conditional GET: the vet list and each
+ * owner (with its pets and visits). A version is the time of the last change in milliseconds,
+ * made unique by a shared clock, and is sent as the ETag. It is not sent as the Last-Modified
+ * date: If-Modified-Since is compared in whole seconds, which would answer 304 for a change made
+ * later in the same second.
+ * <p/>
+ * Versions live in memory only and start at the time the application started, so a restart
+ * invalidates every ETag handed out before. Owners share {@value #OWNER_STRIPES} versions: a
+ * change to one owner also invalidates the owners it shares a stripe with, which costs a full
+ * response but never a stale one. Changes are recorded once their transaction commits, so a
+ * client can never see a new version before the new data.
+ */
+@Service
+public class ResourceVersions {
+
+    private static final int OWNER_STRIPES = 1024;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+    private final AtomicLong all = new AtomicLong(this.clock.get());
+
+    private final AtomicLongArray owners = new AtomicLongArray(OWNER_STRIPES);
+
+    /**
+     * Check the vet list against the conditional headers of the request, see
+     * {@link #checkNotModified(ServletWebRequest, String, long)}.
+     */
+    public boolean checkVetsNotModified(ServletWebRequest request) {
+        return checkNotModified(request, "vets", getVetsVersion());
+    }
+
+    /**
+     * Check the gzipped vet list against the conditional headers of the request. Its ETag differs
+     * from that of the plain body, as a strong validator must for another content coding.
+     */
+    public boolean checkGzippedVetsNotModified(ServletWebRequest request) {
+        return checkNotModified(request, "vets", Long.toString(getVetsVersion(), 36) + "-gzip");
+    }
+
+    /**
+     * @return the current version of the vet list, for caches of what is derived from it
+     */
+    public long getVetsVersion() {
+        // vets only change along with everything else
+        return this.all.get();
+    }
+
+    /**
+     * Check an owner against the conditional headers of the request, see
+     * {@link #checkNotModified(ServletWebRequest, String, long)}.
+     */
+    public boolean checkOwnerNotModified(ServletWebRequest request, int ownerId) {
+        return checkNotModified(request, "owner-" + ownerId, getOwnerVersion(ownerId));
+    }
+
+    /**
+     * @return the current version of an owner, for caches of what is derived from it
+     */
+    public long getOwnerVersion(int ownerId) {
+        return Math.max(this.all.get(), this.owners.get(stripe(ownerId)));
+    }
+
+    public void ownerChanged(int ownerId) {
+        afterCommit(() -> this.owners.set(stripe(ownerId), tick()));
+    }
+
+    /**
+     * Invalidate every version, after changes that are not tracked one by one (bulk imports,
+     * sample data, vets).
+     */
+    public void allChanged() {
+        afterCommit(() -> this.all.set(tick()));
+    }
+
+    /**
+     * Set the ETag and Cache-Control headers of the response and tell whether the
+     * client already has this version, in which case the response is a 304 and the handler
+     * should return {@code null} right away, without reading or rendering anything.
+     */
+    private static boolean checkNotModified(ServletWebRequest request, String resource, long version) {
+        return checkNotModified(request, resource, Long.toString(version, 36));
+    }
+
+    private static boolean checkNotModified(ServletWebRequest request, String resource, String version) {
+        // revalidate on every use rather than let browsers guess a freshness lifetime
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return request.checkNotModified("\"" + resource + "-" + version + "\"");
+    }
+
+    private static int stripe(int ownerId) {
+        return Math.floorMod(ownerId, OWNER_STRIPES);
+    }
+
+    /**
+     * @return the current time, or one more than the last tick if that is later, so that every
+     * change gets a version no other change had
+     */
+    private long tick() {
+        long now = System.currentTimeMillis();
+        return this.clock.accumulateAndGet(now, (last, time) -> Math.max(last + 1, time));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+}
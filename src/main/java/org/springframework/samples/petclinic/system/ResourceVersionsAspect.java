@@ -0,0 +1,48 @@
+package org.springframework.samples.petclinic.system;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the version of an owner on to a new one whenever the owner, one of its pets or a visit to
+ * one of its pets is saved, see {@link ResourceVersions}.
+ */
+@Aspect
+@Component
+class ResourceVersionsAspect {
+
+    private final ResourceVersions versions;
+
+    private final PetRepository pets;
+
+    @Autowired
+    public ResourceVersionsAspect(ResourceVersions versions, PetRepository pets) {
+        this.versions = versions;
+        this.pets = pets;
+    }
+
+    @AfterReturning("execution(* org.springframework.samples.petclinic.owner.OwnerRepository.save(..)) && args(owner)")
+    public void ownerSaved(Owner owner) {
+        this.versions.ownerChanged(owner.getId());
+    }
+
+    @AfterReturning("execution(* org.springframework.samples.petclinic.owner.PetRepository.save(..)) && args(pet)")
+    public void petSaved(Pet pet) {
+        this.versions.ownerChanged(pet.getOwner().getId());
+    }
+
+    @AfterReturning("execution(* org.springframework.samples.petclinic.visit.VisitRepository.save(..)) && args(visit)")
+    public void visitSaved(Visit visit) {
+        Integer ownerId = this.pets.findOwnerIdById(visit.getPetId());
+        if (ownerId != null) {
+            this.versions.ownerChanged(ownerId);
+        }
+    }
+
+}
@@ -1,56 +1,62 @@
 package org.springframework.samples.petclinic.system;
 
 
-import org.apache.commons.lang3.StringUtils;
-import org.jfairy.Fairy;
-import org.jfairy.producer.person.Person;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.samples.petclinic.bulk.BulkDataGenerator;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.owner.PetTypesChangedEvent;
 import org.springframework.samples.petclinic.vet.Specialty;
 import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
-import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Propagation;
+import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-@Component
+@Service
 public class SampleData {
 
-    private static final String DATE_FORMAT_STRING = "YYYY-MM-dd";
     private static final String VISIT_RABIES_SHOT = "rabies shot";
     private static final String VISIT_NEUTERED = "neutered";
     private static final String VISIT_SPAYED = "spayed";
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(SampleData.class);
-
     @Autowired
     private OwnerRepository ownerRepository;
 
     @Autowired
     private VisitRepository visitRepository;
 
+    @Autowired
+    private PetVisitStatsRepository petVisitStats;
+
     @Autowired
     private EntityManager entityManager;
 
-    private List<PetType> petTypes = new ArrayList<>();
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private BulkDataGenerator bulkDataGenerator;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Value("${petclinic.sample-data.lots.owners:10000}")
+    private int lotsOfOwners;
 
     @Transactional
+    @CacheEvict(cacheNames = {"vets", "petTypes", "owners", "pets"}, allEntries = true)
     public void reset() {
         deleteAll();
         create();
@@ -58,8 +64,10 @@ public class SampleData {
 
     @Transactional
     public void deleteAll() {
-        Stream.of("Visit", "Pet", "Owner", "PetType", "Vet", "Specialty")
+        Stream.of("PetVisitStats", "Visit", "Pet", "Owner", "PetType", "Vet", "Specialty")
             .forEach(entityName -> entityManager.createQuery("DELETE from " + entityName).executeUpdate());
+        eventPublisher.publishEvent(new PetTypesChangedEvent(this));
+        resourceVersions.allChanged();
     }
 
     @Transactional
@@ -82,7 +90,7 @@ public class SampleData {
         PetType bird = savePetType("bird");
         PetType hamster = savePetType("hamster");
 
-        petTypes.addAll(Arrays.asList(cat, dog, lizard, snake, bird, hamster));
+        eventPublisher.publishEvent(new PetTypesChangedEvent(this));
 
         Pet leo = createPet("Leo", "2010-09-07", cat);
         Pet basil = createPet("Basil", "2012-08-06", hamster);
@@ -112,47 +120,26 @@ public class SampleData {
         saveVisit(samantha, VISIT_RABIES_SHOT, "2013-01-01");
         saveVisit(max, VISIT_RABIES_SHOT, "2013-01-02");
         saveVisit(max, VISIT_NEUTERED, "2013-01-03");
-        saveVisit(jewel, VISIT_SPAYED, "2013-01-04");
+        saveVisit(samantha, VISIT_SPAYED, "2013-01-04");
+        petVisitStats.rebuild();
+        resourceVersions.allChanged();
 
     }
 
+    /**
+     * Add {@code petclinic.sample-data.lots.owners} random owners, with pets and visits, through the
+     * {@link BulkDataGenerator}.
+     */
     public void createLotsOfData() {
-        Fairy fairy = Fairy.create();
-
-        int count = 10000;
-        IntStream.range(0, count).parallel()
-            .forEach(countSoFar -> createRandomOwnerWithPets(fairy));
-
-        LOGGER.info("Created {} owners", count);
+        createLotsOfData(lotsOfOwners);
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void createRandomOwnerWithPets(Fairy fairy) {
-        List<Pet> pets = IntStream.range(0, fairy.baseProducer().randomBetween(1, 5))
-            .mapToObj(petNumber -> createPet(
-                fairy.person().firstName(),
-                fairy.dateProducer().randomDateInThePast(5).minusYears(3).toString(DATE_FORMAT_STRING),
-                petTypes.get(fairy.baseProducer().randomBetween(0, petTypes.size() - 1)))
-            ).collect(Collectors.toList());
-
-        Person person = fairy.person();
-        saveOwner(
-            person.firstName(),
-            person.lastName(),
-            randomAddress(fairy),
-            person.getAddress().getCity(),
-            String.valueOf(fairy.baseProducer().randomBetween(100000000, 200000000)),
-            pets.toArray(new Pet[]{})
-        );
-
-        pets.forEach(pet -> IntStream.range(1, fairy.baseProducer().randomBetween(1, 3)).forEach(unused2 -> saveVisit(
-            pet,
-            Arrays.asList(VISIT_NEUTERED, VISIT_RABIES_SHOT, VISIT_SPAYED).get(fairy.baseProducer().randomBetween(0, 2)),
-            fairy.dateProducer().randomDateInThePast(3).toString(DATE_FORMAT_STRING)
-        )));
+    public void createLotsOfData(int ownerCount) {
+        bulkDataGenerator.generate(ownerCount);
+        petVisitStats.rebuild();
+        resourceVersions.allChanged();
     }
 
-
     private void saveVisit(Pet pet, String description, String visitDate) {
         Visit visit = new Visit();
         visit.setDescription(description);
@@ -214,7 +201,4 @@ public class SampleData {
         return Date.from(Instant.parse(dateShortIso + "T00:00:00Z"));
     }
 
-    private String randomAddress(Fairy fairy) {
-        return fairy.baseProducer().randomBetween(1, 100) + " " + StringUtils.capitalize(fairy.textProducer().word(1)) + " Street";
-    }
 }
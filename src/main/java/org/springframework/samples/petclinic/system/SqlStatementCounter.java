@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.system;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. Registered through
+ * {@code hibernate.session_factory.statement_inspector}; statements issued through plain JDBC are
+ * not seen.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * @return the number of statements prepared on this thread so far
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * @return the counter of this thread, for {@link #useCounter(long[])} on another thread
+     */
+    static long[] counter() {
+        return COUNT.get();
+    }
+
+    /**
+     * Count the statements of this thread on the given counter, e.g. the counter of the thread
+     * that handed work over to this one.
+     *
+     * @return the counter used so far, to be restored afterwards
+     */
+    static long[] useCounter(long[] counter) {
+        long[] previous = COUNT.get();
+        COUNT.set(counter);
+        return previous;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+}
@@ -17,9 +17,12 @@ package org.springframework.samples.petclinic.vet;
 
 import java.io.Serializable;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.samples.petclinic.model.NamedEntity;
 
 /**
@@ -28,6 +31,8 @@ import org.springframework.samples.petclinic.model.NamedEntity;
  * @author Juergen Hoeller
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 @Table(name = "specialties")
 public class Specialty extends NamedEntity implements Serializable {
 
@@ -15,12 +15,24 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.FragmentCache;
+import org.springframework.samples.petclinic.system.ResourceVersions;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  * @author Juergen Hoeller
@@ -31,30 +43,104 @@ import org.springframework.web.bind.annotation.ResponseBody;
 @Controller
 class VetController {
 
+    private static final int VETS_PAGE_SIZE = 20;
+
     private final VetRepository vets;
 
+    private final ResourceVersions versions;
+
+    private final VetsPayloads payloads;
+
+    private final FragmentCache fragments;
+
     @Autowired
-    public VetController(VetRepository clinicService) {
+    public VetController(VetRepository clinicService, ResourceVersions versions, VetsPayloads payloads,
+                         FragmentCache fragments) {
         this.vets = clinicService;
+        this.versions = versions;
+        this.payloads = payloads;
+        this.fragments = fragments;
     }
 
     @RequestMapping(value = { "/vets.html" })
-    public String showVetList(Map<String, Object> model) {
+    public String showVetList(Map<String, Object> model, ServletWebRequest request,
+                              @RequestParam(value = "afterLastName", defaultValue = "") String afterLastName,
+                              @RequestParam(value = "afterId", defaultValue = "0") int afterId) {
+        if (this.versions.checkVetsNotModified(request)) {
+            return null;
+        }
+        if (afterId == 0 && afterLastName.isEmpty()) {
+            // the vets are only read when the first page is not rendered for their current version already;
+            // later pages are not cached, so that clients cannot fill the cache with made-up page keys
+            String key = "vets-" + this.versions.getVetsVersion();
+            model.put("vetList", this.fragments.get(key, "vets/vetList", "vetList", () -> findVetPage("", 0)));
+        } else {
+            model.put("vetList", this.fragments.render("vets/vetList", "vetList", findVetPage(afterLastName, afterId)));
+        }
+        return "vets/vetList";
+    }
+
+    private Map<String, Object> findVetPage(String afterLastName, int afterId) {
+        Map<String, Object> model = new HashMap<>();
+        // find one page of vets, asking for one extra row to know whether there is a next page
+        List<Vet> page = this.vets.findPage(afterLastName, afterId, new PageRequest(0, VETS_PAGE_SIZE + 1));
+        if (page.size() > VETS_PAGE_SIZE) {
+            page = page.subList(0, VETS_PAGE_SIZE);
+            Vet last = page.get(VETS_PAGE_SIZE - 1);
+            model.put("nextLastName", last.getLastName());
+            model.put("nextId", last.getId());
+        }
         // Here we are returning an object of type 'Vets' rather than a collection of Vet
         // objects so it is simpler for Object-Xml mapping
         Vets vets = new Vets();
-        vets.getVetList().addAll(this.vets.findAll());
+        vets.getVetList().addAll(page);
         model.put("vets", vets);
-        return "vets/vetList";
+        return model;
     }
 
-    @RequestMapping(value = { "/vets.json", "/vets.xml" })
-    public @ResponseBody Vets showResourcesVetList() {
-        // Here we are returning an object of type 'Vets' rather than a collection of Vet
-        // objects so it is simpler for JSon/Object mapping
-        Vets vets = new Vets();
-        vets.getVetList().addAll(this.vets.findAll());
-        return vets;
+    @RequestMapping("/vets.json")
+    public void showJsonVetList(ServletWebRequest request, HttpServletResponse response) throws IOException {
+        showResourcesVetList(request, response, MediaType.APPLICATION_JSON);
+    }
+
+    @RequestMapping("/vets.xml")
+    public void showXmlVetList(ServletWebRequest request, HttpServletResponse response) throws IOException {
+        showResourcesVetList(request, response, MediaType.APPLICATION_XML);
+    }
+
+    /**
+     * Write the vet list as serialized ahead by {@link VetsPayloads}, gzipped if the client takes it.
+     */
+    private void showResourcesVetList(ServletWebRequest request, HttpServletResponse response, MediaType mediaType)
+        throws IOException {
+        // on 304 responses as well, which name the coding the client has by their ETag
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (gzip ? this.versions.checkGzippedVetsNotModified(request) : this.versions.checkVetsNotModified(request)) {
+            return;
+        }
+        VetsPayloads.Payload payload = this.payloads.get(mediaType);
+        response.setContentType(payload.getContentType().toString());
+        byte[] body = payload.getBody();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = payload.getGzippedBody();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : StringUtils.commaDelimitedListToStringArray(acceptEncoding)) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 
 }
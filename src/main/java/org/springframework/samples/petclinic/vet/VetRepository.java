@@ -16,10 +16,16 @@
 package org.springframework.samples.petclinic.vet;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -34,13 +40,53 @@ import org.springframework.transaction.annotation.Transactional;
 public interface VetRepository extends Repository<Vet, Integer> {
 
     /**
-     * Retrieve all <code>Vet</code>s from the data store.
+     * Retrieve all <code>Vet</code>s from the data store, with their specialties, in a single
+     * query.
      *
      * @return a <code>Collection</code> of <code>Vet</code>s
      */
+    @Query("SELECT DISTINCT vet FROM Vet vet left join fetch vet.specialties ORDER BY vet.id")
     @Transactional(readOnly = true)
     @Cacheable("vets")
     Collection<Vet> findAll() throws DataAccessException;
 
+    /**
+     * Retrieve one page of <code>Vet</code>s with their specialties, ordered by last name and id.
+     * Like {@link org.springframework.samples.petclinic.owner.OwnerRepository#findByLastName(String,
+     * String, Integer, Pageable) the owner pages}, pages are addressed by the (last name, id) of the
+     * last vet on the previous page. The page takes two queries, one for the ids of its vets and one
+     * for these vets with their specialties, as the database cannot limit a join to a number of vets.
+     *
+     * @param afterLastName last name of the last vet on the previous page ("" for the first page)
+     * @param afterId id of the last vet on the previous page (0 for the first page)
+     * @param pageable the maximum number of vets to return; only its page size is honoured
+     * @return a <code>List</code> of <code>Vet</code>s
+     */
+    @Transactional(readOnly = true)
+    default List<Vet> findPage(String afterLastName, Integer afterId, Pageable pageable) {
+        List<Integer> ids = findPageIds(afterLastName, afterId, pageable);
+        return ids.isEmpty() ? Collections.emptyList() : findWithSpecialtiesByIdIn(ids);
+    }
+
+    @Query("SELECT vet.id FROM Vet vet " +
+        "WHERE vet.lastName > :afterLastName OR (vet.lastName = :afterLastName AND vet.id > :afterId) " +
+        "ORDER BY vet.lastName, vet.id")
+    List<Integer> findPageIds(@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId,
+                              Pageable pageable);
+
+    @Query("SELECT DISTINCT vet FROM Vet vet left join fetch vet.specialties WHERE vet.id IN :ids " +
+        "ORDER BY vet.lastName, vet.id")
+    List<Vet> findWithSpecialtiesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Stream all <code>Vet</code>s with their specialties, in id order. Vets are read from the
+     * data store as the stream is consumed, so it must be consumed (and closed) within a
+     * transaction.
+     *
+     * @return a <code>Stream</code> of <code>Vet</code>s
+     */
+    @Query("SELECT vet FROM Vet vet left join fetch vet.specialties ORDER BY vet.id")
+    Stream<Vet> streamAll() throws DataAccessException;
+
 
 }
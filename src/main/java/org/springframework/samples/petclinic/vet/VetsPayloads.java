@@ -0,0 +1,145 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.samples.petclinic.system.ResourceVersions;
+import org.springframework.stereotype.Component;
+
+/**
+ * The vet list as {@code /vets.json} and {@code /vets.xml} serve it, serialized by the message
+ * converters of the application once per version of the vets (see {@link ResourceVersions}) and
+ * kept both plain and gzipped, so that serving it is a copy of bytes rather than a copy of the
+ * cached list and a serialization on every request.
+ * <p/>
+ * A payload is stamped with the version of the vets read before the vets themselves, so it is
+ * never older than its version; when the vets change, the next request serializes them again.
+ */
+@Component
+class VetsPayloads {
+
+    private final VetRepository vets;
+
+    private final ResourceVersions versions;
+
+    private final List<HttpMessageConverter<?>> converters;
+
+    private final ConcurrentMap<MediaType, Payload> payloads = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VetsPayloads(VetRepository vets, ResourceVersions versions, HttpMessageConverters converters) {
+        this.vets = vets;
+        this.versions = versions;
+        this.converters = converters.getConverters();
+    }
+
+    /**
+     * @param mediaType {@link MediaType#APPLICATION_JSON} or {@link MediaType#APPLICATION_XML}
+     * @return the current vet list in that media type
+     */
+    public Payload get(MediaType mediaType) {
+        long version = this.versions.getVetsVersion();
+        Payload payload = this.payloads.get(mediaType);
+        if (payload == null || payload.version != version) {
+            // concurrent requests may serialize the same version more than once, which is harmless
+            payload = serialize(mediaType, version);
+            this.payloads.put(mediaType, payload);
+        }
+        return payload;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Payload serialize(MediaType mediaType, long version) {
+        // Here we are serializing an object of type 'Vets' rather than a collection of Vet
+        // objects so it is simpler for JSon/Object-Xml mapping
+        Vets vets = new Vets();
+        vets.getVetList().addAll(this.vets.findAll());
+        for (HttpMessageConverter<?> converter : this.converters) {
+            if (converter.canWrite(Vets.class, mediaType)) {
+                BufferedOutputMessage message = new BufferedOutputMessage();
+                try {
+                    ((HttpMessageConverter<Object>) converter).write(vets, mediaType, message);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                return new Payload(version, message.getHeaders().getContentType(), message.body.toByteArray());
+            }
+        }
+        throw new IllegalArgumentException("No message converter writes the vet list as " + mediaType);
+    }
+
+    /**
+     * One serialized version of the vet list.
+     */
+    static class Payload {
+
+        private final long version;
+
+        private final MediaType contentType;
+
+        private final byte[] body;
+
+        private final byte[] gzippedBody;
+
+        Payload(long version, MediaType contentType, byte[] body) {
+            this.version = version;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzippedBody = gzip(body);
+        }
+
+        public MediaType getContentType() {
+            return this.contentType;
+        }
+
+        public byte[] getBody() {
+            return this.body;
+        }
+
+        public byte[] getGzippedBody() {
+            return this.gzippedBody;
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+                out.write(body);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return gzipped.toByteArray();
+        }
+
+    }
+
+    private static class BufferedOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return this.body;
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * The number of visits of one pet and the date of its last visit, kept up to date as visits are
+ * added (see {@link PetVisitStatsRepository}) so that lists of pets and owners can show them
+ * without reading any visits. Pets without visits have no statistics.
+ */
+@Entity
+@Table(name = "pet_visit_stats")
+public class PetVisitStats {
+
+    @Id
+    @Column(name = "pet_id")
+    private Integer petId;
+
+    @Column(name = "visit_count")
+    private long visitCount;
+
+    @Column(name = "last_visit_date")
+    @Temporal(TemporalType.DATE)
+    private Date lastVisitDate;
+
+    protected PetVisitStats() {
+    }
+
+    public PetVisitStats(Integer petId, long visitCount, Date lastVisitDate) {
+        this.petId = petId;
+        this.visitCount = visitCount;
+        this.lastVisitDate = lastVisitDate;
+    }
+
+    public Integer getPetId() {
+        return this.petId;
+    }
+
+    public long getVisitCount() {
+        return this.visitCount;
+    }
+
+    public Date getLastVisitDate() {
+        return this.lastVisitDate;
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.springframework.samples.petclinic.visit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Rebuilds the {@link PetVisitStats} of all pets from their visits on the schedule of
+ * {@code petclinic.visit-stats.rebuild-cron}, every night by default, to repair whatever drift
+ * counting visits one by one may have left.
+ */
+@Configuration
+@EnableScheduling
+class PetVisitStatsRebuildJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PetVisitStatsRebuildJob.class);
+
+    private final PetVisitStatsRepository stats;
+
+    @Autowired
+    public PetVisitStatsRebuildJob(PetVisitStatsRepository stats) {
+        this.stats = stats;
+    }
+
+    @Scheduled(cron = "${petclinic.visit-stats.rebuild-cron:0 0 3 * * *}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        this.stats.rebuild();
+        LOGGER.info("Rebuilt pet visit statistics in {} ms", System.currentTimeMillis() - start);
+    }
+
+}
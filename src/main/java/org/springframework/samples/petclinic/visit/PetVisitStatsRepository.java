@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.visit;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for {@link PetVisitStats}: counts each visit as it is added, and rebuilds the
+ * statistics of all pets from their visits after visits were added behind its back (bulk imports
+ * straight through JDBC, for example) or whenever they may have drifted.
+ */
+public interface PetVisitStatsRepository extends Repository<PetVisitStats, Integer>, PetVisitStatsRepositoryCustom {
+
+    /**
+     * Count a newly saved {@link Visit} in the statistics of its pet.
+     * @param visit the visit, saved already
+     */
+    @Transactional
+    default void visitAdded(Visit visit) {
+        visitsAdded(visit.getPetId(), 1, visit.getDate());
+    }
+
+    void save(PetVisitStats stats);
+
+    PetVisitStats findByPetId(Integer petId);
+
+    /**
+     * Recompute the statistics of all pets from their visits.
+     */
+    @Transactional
+    default void rebuild() {
+        deleteAll();
+        insertFromVisits();
+    }
+
+    @Modifying
+    @Query("DELETE FROM PetVisitStats")
+    void deleteAll();
+
+    @Modifying
+    @Query("INSERT INTO PetVisitStats (petId, visitCount, lastVisitDate) " +
+        "SELECT visit.petId, COUNT(visit), MAX(visit.date) FROM Visit visit GROUP BY visit.petId")
+    void insertFromVisits();
+
+}
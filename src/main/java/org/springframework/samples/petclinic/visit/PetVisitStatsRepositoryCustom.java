@@ -0,0 +1,19 @@
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Date;
+
+/**
+ * The part of {@link PetVisitStatsRepository} that counts new visits, implemented with plain JDBC by
+ * {@link PetVisitStatsRepositoryImpl}.
+ */
+public interface PetVisitStatsRepositoryCustom {
+
+    /**
+     * Count newly saved visits of one pet in its statistics.
+     * @param petId the id of the pet
+     * @param count the number of visits
+     * @param lastVisitDate the date of the latest of these visits
+     */
+    void visitsAdded(Integer petId, long count, Date lastVisitDate);
+
+}
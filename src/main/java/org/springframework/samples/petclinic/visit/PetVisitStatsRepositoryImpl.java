@@ -0,0 +1,50 @@
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts new visits with a single UPDATE of the statistics of their pet, so that concurrent visits
+ * to the same pet are all counted. The first visit of a pet inserts the statistics instead; if a
+ * concurrent first visit inserted them in the meantime, the insert fails on the primary key and the
+ * visit is counted with the UPDATE after all.
+ * <p/>
+ * Plain JDBC rather than JPA, since a failed JPA statement would roll back the whole transaction,
+ * including the visits being counted.
+ */
+class PetVisitStatsRepositoryImpl implements PetVisitStatsRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public PetVisitStatsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void visitsAdded(Integer petId, long count, Date lastVisitDate) {
+        java.sql.Date date = lastVisitDate == null ? null : new java.sql.Date(lastVisitDate.getTime());
+        if (incrementVisitCount(petId, count, date) > 0) {
+            return;
+        }
+        try {
+            this.jdbcTemplate.update("INSERT INTO pet_visit_stats (pet_id, visit_count, last_visit_date) " +
+                "VALUES (?, ?, ?)", petId, count, date);
+        } catch (DuplicateKeyException ex) {
+            // a concurrent first visit of the pet inserted the statistics first
+            incrementVisitCount(petId, count, date);
+        }
+    }
+
+    private int incrementVisitCount(Integer petId, long count, java.sql.Date date) {
+        return this.jdbcTemplate.update("UPDATE pet_visit_stats SET visit_count = visit_count + ?, " +
+            "last_visit_date = CASE WHEN last_visit_date IS NULL OR last_visit_date < ? THEN ? " +
+            "ELSE last_visit_date END WHERE pet_id = ?", count, date, date, petId);
+    }
+
+}
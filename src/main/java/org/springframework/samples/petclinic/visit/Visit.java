@@ -22,6 +22,7 @@ import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Version;
 
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -58,6 +59,13 @@ public class Visit extends BaseEntity {
     @Column(name = "pet_id")
     private Integer petId;
 
+    /**
+     * Holds value of property version, for optimistic locking.
+     */
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
 
     /**
      * Creates a new instance of Visit for the current date
@@ -121,4 +129,22 @@ public class Visit extends BaseEntity {
         this.petId = petId;
     }
 
+    /**
+     * Getter for property version.
+     *
+     * @return Value of property version.
+     */
+    public Integer getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Setter for property version.
+     *
+     * @param version New value of property version.
+     */
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
 }
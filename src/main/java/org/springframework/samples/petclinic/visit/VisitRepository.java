@@ -42,4 +42,12 @@ public interface VisitRepository extends Repository<Visit, Integer> {
 
     List<Visit> findByPetId(Integer petId);
 
+    /**
+     * Retrieve the <code>Visit</code>s of a pet, most recent first.
+     *
+     * @param petId the id of the pet
+     * @return the pet's visits
+     */
+    List<Visit> findByPetIdOrderByDateDesc(Integer petId);
+
 }
@@ -1,21 +1,23 @@
 DROP TABLE vet_specialties IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
+DROP TABLE pet_visit_stats IF EXISTS;
 DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP TABLE id_generators IF EXISTS;
 
 
 CREATE TABLE vets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR(30)
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
 CREATE TABLE specialties (
-  id   INTEGER IDENTITY PRIMARY KEY,
+  id   INTEGER NOT NULL PRIMARY KEY,
   name VARCHAR(80)
 );
 CREATE INDEX specialties_name ON specialties (name);
@@ -28,37 +30,60 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_vets FOREIGN KEY (
 ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIGN KEY (specialty_id) REFERENCES specialties (id);
 
 CREATE TABLE types (
-  id   INTEGER IDENTITY PRIMARY KEY,
+  id   INTEGER NOT NULL PRIMARY KEY,
   name VARCHAR(80)
 );
 CREATE INDEX types_name ON types (name);
 
 CREATE TABLE owners (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR_IGNORECASE(30),
+  last_name_key VARCHAR(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
-CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_last_name_key ON owners (last_name_key, id);
 
 CREATE TABLE pets (
-  id         INTEGER IDENTITY PRIMARY KEY,
+  id         INTEGER NOT NULL PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER NOT NULL
+  owner_id   INTEGER NOT NULL,
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
 CREATE INDEX pets_name ON pets (name);
 
 CREATE TABLE visits (
-  id          INTEGER IDENTITY PRIMARY KEY,
+  id          INTEGER NOT NULL PRIMARY KEY,
   pet_id      INTEGER NOT NULL,
   visit_date  DATE,
-  description VARCHAR(255)
+  description VARCHAR(255),
+  version     INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
 CREATE INDEX visits_pet_id ON visits (pet_id);
+
+CREATE TABLE pet_visit_stats (
+  pet_id          INTEGER NOT NULL PRIMARY KEY,
+  visit_count     INTEGER NOT NULL,
+  last_visit_date DATE
+);
+ALTER TABLE pet_visit_stats ADD CONSTRAINT fk_pet_visit_stats_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
+
+-- next free id per table, allocated in blocks by Hibernate (BaseEntity) and by the JDBC bulk inserts (IdentityCounters)
+CREATE TABLE id_generators (
+  table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+  next_id    BIGINT NOT NULL
+);
+INSERT INTO id_generators VALUES ('vets', 1);
+INSERT INTO id_generators VALUES ('specialties', 1);
+INSERT INTO id_generators VALUES ('types', 1);
+INSERT INTO id_generators VALUES ('owners', 1);
+INSERT INTO id_generators VALUES ('pets', 1);
+INSERT INTO id_generators VALUES ('visits', 1);
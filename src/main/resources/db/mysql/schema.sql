@@ -9,14 +9,14 @@ GRANT ALL PRIVILEGES ON petclinic.* TO pc@localhost IDENTIFIED BY 'pc';
 USE petclinic;
 
 CREATE TABLE IF NOT EXISTS vets (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
   INDEX(last_name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS specialties (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(80),
   INDEX(name)
 ) engine=InnoDB;
@@ -30,36 +30,59 @@ CREATE TABLE IF NOT EXISTS vet_specialties (
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS types (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(80),
   INDEX(name)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS owners (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   first_name VARCHAR(30),
   last_name VARCHAR(30),
+  last_name_key VARCHAR(30) CHARACTER SET utf8 COLLATE utf8_bin,
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  INDEX owners_last_name_key (last_name_key, id)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS pets (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   name VARCHAR(30),
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED NOT NULL,
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(name),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
 ) engine=InnoDB;
 
 CREATE TABLE IF NOT EXISTS visits (
-  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
   pet_id INT(4) UNSIGNED NOT NULL,
   visit_date DATE,
   description VARCHAR(255),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
+  FOREIGN KEY (pet_id) REFERENCES pets(id)
+) engine=InnoDB;
+
+CREATE TABLE IF NOT EXISTS pet_visit_stats (
+  pet_id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  visit_count INT(4) UNSIGNED NOT NULL,
+  last_visit_date DATE,
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- next free id per table, allocated in blocks by Hibernate (BaseEntity) and by the JDBC bulk inserts (IdentityCounters)
+CREATE TABLE IF NOT EXISTS id_generators (
+  table_name VARCHAR(64) NOT NULL PRIMARY KEY,
+  next_id BIGINT UNSIGNED NOT NULL
+) engine=InnoDB;
+INSERT IGNORE INTO id_generators SELECT 'vets', COALESCE(MAX(id), 0) + 1 FROM vets;
+INSERT IGNORE INTO id_generators SELECT 'specialties', COALESCE(MAX(id), 0) + 1 FROM specialties;
+INSERT IGNORE INTO id_generators SELECT 'types', COALESCE(MAX(id), 0) + 1 FROM types;
+INSERT IGNORE INTO id_generators SELECT 'owners', COALESCE(MAX(id), 0) + 1 FROM owners;
+INSERT IGNORE INTO id_generators SELECT 'pets', COALESCE(MAX(id), 0) + 1 FROM pets;
+INSERT IGNORE INTO id_generators SELECT 'visits', COALESCE(MAX(id), 0) + 1 FROM visits;
@@ -0,0 +1,97 @@
+package org.springframework.samples.petclinic.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * The read API answers asynchronously, streaming lists as one JSON object per line.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ClinicApiControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testStreamVets() throws Exception {
+        List<JsonNode> vets = readLines(get("/api/vets"));
+
+        assertThat(vets).hasSize(6);
+        assertThat(vets.get(0).get("lastName").asText()).isEqualTo("Carter");
+        assertThat(vets.get(1).get("specialties").findValuesAsText("name")).containsExactly("radiology");
+        assertThat(vets.get(2).get("specialties").findValuesAsText("name")).containsExactly("dentistry", "surgery");
+        assertThat(vets.get(0).has("new")).isFalse();
+    }
+
+    @Test
+    public void testStreamOwnersByLastName() throws Exception {
+        List<JsonNode> owners = readLines(get("/api/owners").param("lastName", "dAv"));
+
+        assertThat(owners).extracting(owner -> owner.get("firstName").asText()).containsExactly("Betty", "Harold");
+        JsonNode pet = owners.get(0).get("pets").get(0);
+        assertThat(pet.get("name").asText()).isEqualTo("Basil");
+        assertThat(pet.get("type").get("name").asText()).isEqualTo("hamster");
+        assertThat(pet.has("owner")).isFalse();
+        assertThat(pet.has("visits")).isFalse();
+        assertThat(pet.has("new")).isFalse();
+    }
+
+    @Test
+    public void testShowOwner() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/owners/{ownerId}", 6))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.lastName").value("Coleman"))
+            .andExpect(jsonPath("$.pets[?(@.name == 'Samantha')].visits[0].description").value("spayed"))
+            .andExpect(jsonPath("$.pets[0].owner").doesNotExist());
+    }
+
+    @Test
+    public void testShowOwnerNotFound() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/owners/{ownerId}", 99999))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isNotFound());
+    }
+
+    private List<JsonNode> readLines(RequestBuilder requestBuilder) throws Exception {
+        MvcResult result = mockMvc.perform(requestBuilder)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult();
+        assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson");
+        return objectMapper.readerFor(JsonNode.class).<JsonNode>readValues(result.getResponse().getContentAsString())
+            .readAll();
+    }
+
+}
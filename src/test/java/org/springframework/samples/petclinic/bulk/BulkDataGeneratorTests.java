@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The generator commits chunk by chunk, and reserves ids in transactions of their own, so these
+ * tests run outside of a test transaction and remove the generated rows afterwards.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class))
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BulkDataGeneratorTests {
+
+    @Autowired
+    private BulkDataGenerator generator;
+
+    @Autowired
+    private OwnerRepository owners;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int maxOwnerId;
+
+    private int maxPetId;
+
+    private int maxVisitId;
+
+    @After
+    public void removeGeneratedRows() {
+        jdbcTemplate.update("DELETE FROM visits WHERE id > ?", maxVisitId);
+        jdbcTemplate.update("DELETE FROM visits WHERE pet_id > ?", maxPetId);
+        jdbcTemplate.update("DELETE FROM pets WHERE id > ?", maxPetId);
+        jdbcTemplate.update("DELETE FROM owners WHERE id > ?", maxOwnerId);
+    }
+
+    @Test
+    public void shouldInsertOwnersWithPetsInBatches() {
+        rememberMaxIds();
+        int ownerCount = count("owners");
+
+        generator.generate(2500);
+
+        assertThat(count("owners")).isEqualTo(ownerCount + 2500);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM owners o WHERE o.id > ? AND NOT EXISTS (SELECT 1 FROM pets p WHERE p.owner_id = o.id)",
+            Integer.class, maxOwnerId)).isZero();
+    }
+
+    @Test
+    public void shouldKeepIdsOfNewOwnersApartFromGeneratedRows() {
+        rememberMaxIds();
+        int ownerCount = count("owners");
+
+        generator.generate(10);
+        Owner first = newOwner();
+        owners.save(first);
+        generator.generate(10);
+        Owner second = newOwner();
+        owners.save(second);
+
+        assertThat(count("owners")).isEqualTo(ownerCount + 22);
+        assertThat(first.getId()).isGreaterThan(maxOwnerId);
+        assertThat(second.getId()).isGreaterThan(first.getId());
+    }
+
+    private Owner newOwner() {
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName("Schultz");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        return owner;
+    }
+
+    private void rememberMaxIds() {
+        maxOwnerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class);
+        maxPetId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM pets", Integer.class);
+        maxVisitId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class))
+public class ClinicExporterTests {
+
+    @Autowired
+    private ClinicExporter exporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void shouldExportOwnersAsCsv() throws Exception {
+        String[] lines = export(Dataset.OWNERS, Format.CSV);
+
+        assertThat(lines).hasSize(11);
+        assertThat(lines[0]).isEqualTo("id,first_name,last_name,address,city,telephone");
+        assertThat(lines[1]).isEqualTo("1,George,Franklin,110 W. Liberty St.,Madison,6085551023");
+    }
+
+    @Test
+    public void shouldExportPetsWithTypeName() throws Exception {
+        String[] lines = export(Dataset.PETS, Format.CSV);
+
+        assertThat(lines[0]).isEqualTo("id,name,birth_date,type,owner_id");
+        assertThat(lines[1]).isEqualTo("1,Leo,2010-09-07,cat,1");
+    }
+
+    @Test
+    public void shouldExportVisitsAsNdjson() throws Exception {
+        String[] lines = export(Dataset.VISITS, Format.NDJSON);
+
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).startsWith("{\"id\":1,\"pet_id\":").contains("\"description\":\"rabies shot\"");
+    }
+
+    @Test
+    public void shouldExportHeaderOfEmptyTable() throws Exception {
+        jdbcTemplate.update("DELETE FROM visits");
+
+        String[] lines = export(Dataset.VISITS, Format.CSV);
+
+        assertThat(lines).containsExactly("id,pet_id,visit_date,description");
+    }
+
+    @Test
+    public void shouldQuoteCsvValues() {
+        assertThat(CsvUtils.escape("Madison")).isEqualTo("Madison");
+        assertThat(CsvUtils.escape("1, \"The\" Street")).isEqualTo("\"1, \"\"The\"\" Street\"");
+    }
+
+    private String[] export(Dataset dataset, Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(dataset, format, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+    }
+
+}
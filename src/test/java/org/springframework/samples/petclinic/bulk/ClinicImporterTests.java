@@ -0,0 +1,112 @@
+package org.springframework.samples.petclinic.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Imports commit chunk by chunk, so these tests run outside of a test transaction and remove the
+ * imported rows afterwards.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class))
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ClinicImporterTests {
+
+    @Autowired
+    private ClinicImporter importer;
+
+    @Autowired
+    private ClinicExporter exporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int maxOwnerId;
+
+    private int maxPetId;
+
+    @Before
+    public void rememberMaxIds() {
+        maxOwnerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM owners", Integer.class);
+        maxPetId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM pets", Integer.class);
+    }
+
+    @After
+    public void removeImportedRows() {
+        jdbcTemplate.update("DELETE FROM pets WHERE id > ?", maxPetId);
+        jdbcTemplate.update("DELETE FROM owners WHERE id > ?", maxOwnerId);
+    }
+
+    @Test
+    public void shouldImportValidOwnersAndReportInvalidOnes() throws Exception {
+        ImportResult result = importRows(Dataset.OWNERS, Format.CSV,
+            "first_name,last_name,address,city,telephone\n" +
+            "Sam,Schultz,\"4, Evans Street\",Wollongong,4444444444\n" +
+            "Kim,Tran,12 Main Street,Madison,not-a-number\n" +
+            "Lee,Kent,3 Oak Road,Monona\n" +
+            "Ann,Moss,8 Elm Street,Madison,6085551111\n");
+
+        assertThat(result.getRowsRead()).isEqualTo(4);
+        assertThat(result.getRowsImported()).isEqualTo(2);
+        assertThat(result.getRowsRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting("row").containsExactly(2, 3);
+        assertThat(result.getErrors().get(0).getMessage()).startsWith("telephone:");
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT address FROM owners WHERE last_name = 'Schultz'", String.class)).isEqualTo("4, Evans Street");
+    }
+
+    @Test
+    public void shouldImportPetsOfExistingOwnersOnly() throws Exception {
+        ImportResult result = importRows(Dataset.PETS, Format.NDJSON,
+            "{\"name\":\"Tiger\",\"birth_date\":\"2015-03-01\",\"type\":\"cat\",\"owner_id\":1}\n" +
+            "\n" +
+            "{\"name\":\"Nemo\",\"birth_date\":\"2015-03-01\",\"type\":\"fish\",\"owner_id\":1}\n" +
+            "{\"name\":\"Rex\",\"birth_date\":\"2015-03-01\",\"type\":\"dog\",\"owner_id\":999999}\n" +
+            "{\"name\":\"\",\"birth_date\":\"2015-03-01\",\"type\":\"dog\",\"owner_id\":1}\n");
+
+        assertThat(result.getRowsImported()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting("message").containsExactly(
+            "type: unknown pet type 'fish'", "name: required", "no row with id 999999 in owners");
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT owner_id FROM pets WHERE name = 'Tiger'", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRejectRowsTheDatabaseRefuses() throws Exception {
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        exporter.export(Dataset.OWNERS, Format.CSV, export);
+        String csv = new String(export.toByteArray(), StandardCharsets.UTF_8)
+            + (maxOwnerId + 1) + ",Sam,Schultz,4 Evans Street,Wollongong,4444444444\n";
+
+        ImportResult result = importRows(Dataset.OWNERS, Format.CSV, csv);
+
+        assertThat(result.getRowsImported()).isEqualTo(1);
+        assertThat(result.getRowsRejected()).isEqualTo(maxOwnerId);
+        int newId = jdbcTemplate.queryForObject(
+            "SELECT id FROM owners WHERE last_name = 'Schultz'", Integer.class);
+        assertThat(newId).isEqualTo(maxOwnerId + 1);
+    }
+
+    private ImportResult importRows(Dataset dataset, Format format, String content) throws Exception {
+        InputStream in = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        return importer.importRows(dataset, format, in);
+    }
+
+}
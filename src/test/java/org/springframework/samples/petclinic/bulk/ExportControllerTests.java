@@ -0,0 +1,57 @@
+package org.springframework.samples.petclinic.bulk;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.OutputStream;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Test class for the {@link ExportController}
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest(ExportController.class)
+public class ExportControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ClinicExporter exporter;
+
+    @Test
+    public void testExportOwnersCsv() throws Exception {
+        mockMvc.perform(get("/export/owners.csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"owners.csv\""));
+        verify(exporter).export(eq(Dataset.OWNERS), eq(Format.CSV), any(OutputStream.class));
+    }
+
+    @Test
+    public void testExportVisitsNdjson() throws Exception {
+        mockMvc.perform(get("/export/visits.ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"));
+        verify(exporter).export(eq(Dataset.VISITS), eq(Format.NDJSON), any(OutputStream.class));
+    }
+
+    @Test
+    public void testExportUnknownDataset() throws Exception {
+        mockMvc.perform(get("/export/vets.csv"))
+            .andExpect(status().isNotFound());
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.springframework.samples.petclinic.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.system.ResourceVersions;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Visits are written by a thread of their own, so these tests run outside of a test transaction
+ * and remove the visits they added afterwards.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(includeFilters = @ComponentScan.Filter(Service.class))
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class VisitWriteBehindTests {
+
+    private static final int PET_ID = 1;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IdentityCounters identityCounters;
+
+    @Autowired
+    private PetVisitStatsRepository petVisitStats;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Path journal;
+
+    private int maxVisitId;
+
+    @Before
+    public void rememberMaxVisitId() {
+        journal = folder.getRoot().toPath().resolve("visits-journal.ndjson");
+        maxVisitId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+    }
+
+    @After
+    public void removeAddedVisits() {
+        jdbcTemplate.update("DELETE FROM visits WHERE id > ?", maxVisitId);
+        petVisitStats.rebuild();
+    }
+
+    @Test
+    public void shouldWriteQueuedVisitsInBatches() throws Exception {
+        VisitWriteBehind writeBehind = writeBehind();
+        writeBehind.afterPropertiesSet();
+        for (int i = 0; i < 5; i++) {
+            assertThat(writeBehind.add(visit(null, "checkup " + i))).isTrue();
+        }
+        assertThat(journalSize()).isGreaterThan(0);
+        writeBehind.destroy();
+
+        assertThat(writeBehind.getPending()).isZero();
+        assertThat(visitsOfPet()).isEqualTo(5);
+        assertThat(petVisitStats.findByPetId(PET_ID).getVisitCount()).isEqualTo(5);
+        assertThat(journalSize()).isZero();
+    }
+
+    @Test
+    public void shouldWriteVisitsLeftInJournalAtStartup() throws Exception {
+        try (VisitJournal previousRun = new VisitJournal(journal, objectMapper, 2)) {
+            previousRun.append(visit(maxVisitId + 1, "rabies shot"));
+            previousRun.append(visit(maxVisitId + 2, "neutered"));
+        }
+        // written before the crash already
+        jdbcTemplate.update("INSERT INTO visits (id, visit_date, description, pet_id) VALUES (?, ?, ?, ?)",
+            maxVisitId + 1, new Date(), "rabies shot", PET_ID);
+
+        VisitWriteBehind writeBehind = writeBehind();
+        writeBehind.afterPropertiesSet();
+        writeBehind.destroy();
+
+        assertThat(visitsOfPet()).isEqualTo(2);
+        assertThat(journalSize()).isZero();
+    }
+
+    @Test
+    public void shouldDeleteWrittenJournalSegmentsWhileVisitsArePending() throws Exception {
+        try (VisitJournal visitJournal = new VisitJournal(journal, objectMapper, 2)) {
+            List<Visit> visits = new ArrayList<>();
+            for (int id = 1; id <= 5; id++) {
+                visits.add(visit(id, "checkup " + id));
+                visitJournal.append(visits.get(id - 1));
+            }
+            assertThat(journalSegments()).hasSize(3);
+
+            visitJournal.written(visits.subList(0, 3));
+            assertThat(journalSegments()).hasSize(2);
+            assertThat(visitJournal.read()).extracting(Visit::getId).containsExactly(3, 4, 5);
+
+            visitJournal.written(visits.subList(3, 5));
+            assertThat(visitJournal.read()).isEmpty();
+        }
+    }
+
+    @Test
+    public void shouldRefuseVisitsOfUnknownPets() throws Exception {
+        VisitWriteBehind writeBehind = writeBehind();
+        writeBehind.afterPropertiesSet();
+        Visit visit = visit(null, "checkup");
+        visit.setPetId(9999);
+        assertThat(writeBehind.add(visit)).isFalse();
+        assertThat(visit.getId()).isNull();
+        writeBehind.destroy();
+
+        assertThat(writeBehind.getPending()).isZero();
+    }
+
+    @Test
+    public void shouldRefuseVisitsOnceStopped() throws Exception {
+        VisitWriteBehind writeBehind = writeBehind();
+        writeBehind.afterPropertiesSet();
+        writeBehind.destroy();
+
+        Visit visit = visit(null, "too late");
+        assertThat(writeBehind.add(visit)).isFalse();
+        assertThat(visit.getId()).isNull();
+    }
+
+    @Test
+    public void shouldRetryBatchWhenNoTransactionCanBeStarted() throws Exception {
+        AtomicBoolean failed = new AtomicBoolean();
+        PlatformTransactionManager failingOnce = new PlatformTransactionManager() {
+
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new CannotCreateTransactionException("connection pool exhausted");
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        VisitWriteBehind writeBehind = writeBehind(failingOnce);
+        writeBehind.afterPropertiesSet();
+        assertThat(writeBehind.add(visit(null, "checkup"))).isTrue();
+        assertThat(writeBehind.add(visit(null, "rabies shot"))).isTrue();
+        for (int i = 0; i < 50 && writeBehind.getPending() > 0; i++) {
+            Thread.sleep(100);
+        }
+        writeBehind.destroy();
+
+        assertThat(failed.get()).isTrue();
+        assertThat(writeBehind.getPending()).isZero();
+        assertThat(visitsOfPet()).isEqualTo(2);
+    }
+
+    private VisitWriteBehind writeBehind() throws Exception {
+        return writeBehind(transactionManager);
+    }
+
+    private VisitWriteBehind writeBehind(PlatformTransactionManager transactionManager) throws Exception {
+        return new VisitWriteBehind(jdbcTemplate, transactionManager, identityCounters, petVisitStats,
+            resourceVersions, objectMapper, journal.toString(), 2, 50, 10);
+    }
+
+    private Visit visit(Integer id, String description) {
+        Visit visit = new Visit();
+        visit.setId(id);
+        visit.setPetId(PET_ID);
+        visit.setDate(new Date());
+        visit.setDescription(description);
+        return visit;
+    }
+
+    private List<Path> journalSegments() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private long journalSize() throws IOException {
+        long size = 0;
+        for (Path segment : journalSegments()) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+
+    private int visitsOfPet() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits WHERE pet_id = ?", Integer.class, PET_ID);
+    }
+
+}
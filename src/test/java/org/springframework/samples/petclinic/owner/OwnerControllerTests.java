@@ -1,14 +1,28 @@
 package org.springframework.samples.petclinic.owner;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.assertj.core.util.Lists;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,9 +30,15 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerController;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
+import org.springframework.samples.petclinic.system.FragmentCache;
+import org.springframework.samples.petclinic.system.ResourceVersions;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -29,6 +49,7 @@ import org.springframework.test.web.servlet.MockMvc;
  */
 @RunWith(SpringRunner.class)
 @WebMvcTest(OwnerController.class)
+@Import({ ResourceVersions.class, FragmentCache.class })
 public class OwnerControllerTests {
 
     private static final int TEST_OWNER_ID = 1;
@@ -39,6 +60,9 @@ public class OwnerControllerTests {
     @MockBean
     private OwnerRepository owners;
 
+    @Autowired
+    private ResourceVersions versions;
+
     private Owner george;
 
     @Before
@@ -51,6 +75,7 @@ public class OwnerControllerTests {
         george.setCity("Madison");
         george.setTelephone("6085551023");
         given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
+        given(this.owners.findWithVisitsById(TEST_OWNER_ID)).willReturn(george);
     }
 
     @Test
@@ -97,15 +122,47 @@ public class OwnerControllerTests {
 
     @Test
     public void testProcessFindFormSuccess() throws Exception {
-        given(this.owners.findByLastName("")).willReturn(Lists.newArrayList(george, new Owner()));
+        given(this.owners.findSummariesByLastName(eq(""), eq(""), eq(0), any(Pageable.class)))
+            .willReturn(Lists.newArrayList(summary(george), new OwnerSummary(2, "Betty", "Davis", null, null, null)));
+        mockMvc.perform(get("/owners"))
+            .andExpect(status().isOk())
+            .andExpect(model().attributeDoesNotExist("nextId"))
+            .andExpect(view().name("owners/ownersList"));
+    }
+
+    @Test
+    public void testProcessFindFormFirstPage() throws Exception {
+        List<OwnerSummary> franklins = new ArrayList<>();
+        for (int id = 1; id <= 21; id++) {
+            franklins.add(new OwnerSummary(id, "George", "Franklin", null, null, null));
+        }
+        given(this.owners.findSummariesByLastName(eq(""), eq(""), eq(0), any(Pageable.class))).willReturn(franklins);
         mockMvc.perform(get("/owners"))
             .andExpect(status().isOk())
+            .andExpect(model().attribute("selections", hasSize(20)))
+            .andExpect(model().attribute("nextLastName", "Franklin"))
+            .andExpect(model().attribute("nextId", 20))
+            .andExpect(view().name("owners/ownersList"));
+    }
+
+    @Test
+    public void testProcessFindFormLastPage() throws Exception {
+        given(this.owners.findSummariesByLastName(eq(""), eq("Davis"), eq(4), any(Pageable.class)))
+            .willReturn(Lists.newArrayList(summary(george)));
+        mockMvc.perform(get("/owners")
+            .param("afterLastName", "Davis")
+            .param("afterId", "4")
+        )
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("selections", hasSize(1)))
+            .andExpect(model().attributeDoesNotExist("nextId"))
             .andExpect(view().name("owners/ownersList"));
     }
 
     @Test
     public void testProcessFindFormByLastName() throws Exception {
-        given(this.owners.findByLastName(george.getLastName())).willReturn(Lists.newArrayList(george));
+        given(this.owners.findSummariesByLastName(eq(george.getLastName()), eq(""), eq(0), any(Pageable.class)))
+            .willReturn(Lists.newArrayList(summary(george)));
         mockMvc.perform(get("/owners")
             .param("lastName", "Franklin")
         )
@@ -145,11 +202,47 @@ public class OwnerControllerTests {
             .param("address", "123 Caramel Street")
             .param("city", "London")
             .param("telephone", "01616291589")
+            .param("version", "0")
         )
             .andExpect(status().is3xxRedirection())
             .andExpect(view().name("redirect:/owners/{ownerId}"));
     }
 
+    @Test
+    public void testProcessUpdateOwnerFormConflict() throws Exception {
+        george.setVersion(3);
+        willThrow(new ObjectOptimisticLockingFailureException(Owner.class, TEST_OWNER_ID))
+            .given(this.owners).save(any(Owner.class));
+        mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID)
+            .param("firstName", "Joe")
+            .param("lastName", "Bloggs")
+            .param("address", "123 Caramel Street")
+            .param("city", "London")
+            .param("telephone", "01616291589")
+            .param("version", "2")
+        )
+            .andExpect(status().isConflict())
+            .andExpect(model().attributeHasErrors("owner"))
+            .andExpect(model().attribute("owner", hasProperty("firstName", is("Joe"))))
+            .andExpect(model().attribute("owner", hasProperty("version", is(3))))
+            .andExpect(view().name("owners/createOrUpdateOwnerForm"));
+    }
+
+    @Test
+    public void testProcessUpdateOwnerFormWithoutVersion() throws Exception {
+        george.setVersion(3);
+        mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID)
+            .param("firstName", "Joe")
+            .param("lastName", "Bloggs")
+            .param("address", "123 Caramel Street")
+            .param("city", "London")
+            .param("telephone", "01616291589")
+        )
+            .andExpect(status().isConflict())
+            .andExpect(model().attribute("owner", hasProperty("version", is(3))));
+        verify(this.owners, never()).save(any(Owner.class));
+    }
+
     @Test
     public void testProcessUpdateOwnerFormHasErrors() throws Exception {
         mockMvc.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID)
@@ -168,12 +261,37 @@ public class OwnerControllerTests {
     public void testShowOwner() throws Exception {
         mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID))
             .andExpect(status().isOk())
-            .andExpect(model().attribute("owner", hasProperty("lastName", is("Franklin"))))
-            .andExpect(model().attribute("owner", hasProperty("firstName", is("George"))))
-            .andExpect(model().attribute("owner", hasProperty("address", is("110 W. Liberty St."))))
-            .andExpect(model().attribute("owner", hasProperty("city", is("Madison"))))
-            .andExpect(model().attribute("owner", hasProperty("telephone", is("6085551023"))))
+            .andExpect(model().attribute("ownerDetails", containsString("<b>George Franklin</b>")))
+            .andExpect(model().attribute("ownerDetails", containsString(">110 W. Liberty St.</td>")))
+            .andExpect(model().attribute("ownerDetails", containsString(">Madison</td>")))
+            .andExpect(model().attribute("ownerDetails", containsString(">6085551023</td>")))
+            .andExpect(model().attribute("ownerDetails", containsString("href=\"1/edit\"")))
+            .andExpect(content().string(containsString("<b>George Franklin</b>")))
             .andExpect(view().name("owners/ownerDetails"));
     }
 
+    @Test
+    public void testShowOwnerNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "no-cache"))
+            .andExpect(header().doesNotExist("Last-Modified"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+        verify(this.owners, times(1)).findWithVisitsById(TEST_OWNER_ID);
+
+        versions.ownerChanged(TEST_OWNER_ID);
+        mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID).header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", not(etag)))
+            .andExpect(view().name("owners/ownerDetails"));
+    }
+
+    private static OwnerSummary summary(Owner owner) {
+        return new OwnerSummary(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(),
+            owner.getCity(), owner.getTelephone());
+    }
+
 }
@@ -0,0 +1,85 @@
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Asks the database for the plan of the SQL that the owner searches actually run, and checks
+ * that it is a range scan of the {@code owners_last_name_key} index.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "org.springframework.samples.petclinic.owner.OwnerSearchIndexTests$StatementRecorder")
+public class OwnerSearchIndexTests {
+
+    @Autowired
+    private OwnerRepository owners;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${database}")
+    private String database;
+
+    @Before
+    public void clearStatements() {
+        StatementRecorder.statements.clear();
+    }
+
+    @Test
+    public void shouldSearchPageOfOwnersThroughIndex() {
+        owners.findByLastName("Dav", "davis", 2, new PageRequest(0, 21));
+
+        assertIndexRangeScan(StatementRecorder.statements.get(0), "dav%", "davis", "davis", 2, 21);
+    }
+
+    @Test
+    public void shouldSearchAllOwnersThroughIndex() {
+        owners.findByLastName("Dav");
+
+        assertIndexRangeScan(StatementRecorder.statements.get(0), "dav%");
+    }
+
+    private void assertIndexRangeScan(String sql, Object... parameters) {
+        if ("mysql".equals(database)) {
+            List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, parameters);
+            Map<String, Object> owners = plan.stream()
+                .filter(row -> String.valueOf(row.get("table")).startsWith("owner"))
+                .findFirst().get();
+            assertThat(owners.get("key")).isEqualTo("owners_last_name_key");
+            assertThat(owners.get("type")).isEqualTo("range");
+        } else {
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN PLAN FOR " + sql, String.class));
+            String owners = plan.substring(plan.indexOf("table=OWNERS"));
+            assertThat(owners).contains("access=INDEX PRED", "index=OWNERS_LAST_NAME_KEY", "start conditions=[");
+        }
+    }
+
+    public static class StatementRecorder implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+}
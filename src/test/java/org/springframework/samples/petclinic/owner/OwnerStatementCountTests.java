@@ -0,0 +1,170 @@
+package org.springframework.samples.petclinic.owner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.system.ResourceVersions;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Guards the number of SQL statements issued per owner endpoint, so that N+1 selects
+ * creeping back into the fetch plans get noticed.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class OwnerStatementCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PetVisitStatsRepository petVisitStats;
+
+    private Statistics statistics;
+
+    private int maxPetId;
+
+    private int maxVisitId;
+
+    @Before
+    public void setup() {
+        maxPetId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM pets", Integer.class);
+        maxVisitId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+        cacheManager.getCache("fragments").clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @After
+    public void removeAddedPetsAndVisits() {
+        jdbcTemplate.update("DELETE FROM visits WHERE id > ?", maxVisitId);
+        jdbcTemplate.update("DELETE FROM pets WHERE id > ?", maxPetId);
+        petVisitStats.rebuild();
+    }
+
+    @Test
+    public void testOwnerListReadsPetNamesInOneQueryWithoutEntities() throws Exception {
+        mockMvc.perform(get("/owners").param("lastName", ""))
+            .andExpect(status().isOk())
+            .andExpect(view().name("owners/ownersList"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    public void testOwnerDetailLoadsPetsAndVisitsInOneQuery() throws Exception {
+        mockMvc.perform(get("/owners/{ownerId}", 6))
+            .andExpect(status().isOk())
+            .andExpect(view().name("owners/ownerDetails"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOwnerDetailIsRenderedOncePerVersion() throws Exception {
+        mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(get("/owners/{ownerId}", 6))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("Jean Coleman")));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        resourceVersions.ownerChanged(6);
+        mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testOwnerDetailIsRenderedAgainAfterNewPetOrVisit() throws Exception {
+        mockMvc.perform(get("/owners/{ownerId}", 6)).andExpect(status().isOk());
+
+        addVisit(7, "checkup");
+        addPet(6, "Bowser");
+
+        mockMvc.perform(get("/owners/{ownerId}", 6))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("checkup")))
+            .andExpect(content().string(containsString("Bowser")));
+    }
+
+    @Test
+    public void testPetEditFormLoadsNoVisits() throws Exception {
+        mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/edit", 6, 7))
+            .andExpect(status().isOk())
+            .andExpect(view().name("pets/createOrUpdatePetForm"));
+        assertThat(statistics.getEntityStatistics(Visit.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    public void testNewPetCostsTheSameForOwnersWithLongHistories() throws Exception {
+        addPet(3, "Warmup"); // takes a block of ids first
+        statistics.clear();
+
+        addPet(6, "Rex"); // Jean Coleman has two pets with visits
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    public void testNewVisitLoadsNoPetAndNoVisits() throws Exception {
+        addVisit(7, "warmup"); // takes a block of ids first
+        statistics.clear();
+
+        addVisit(7, "rabies shot");
+        // the insert of the visit and the owner of its pet; the visit is counted in its statistics through JDBC
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    private void addPet(int ownerId, String name) throws Exception {
+        mockMvc.perform(post("/owners/{ownerId}/pets/new", ownerId)
+            .param("name", name)
+            .param("type", "dog")
+            .param("birthDate", "2015/02/12"))
+            .andExpect(status().is3xxRedirection());
+    }
+
+    private void addVisit(int petId, String description) throws Exception {
+        mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", 6, petId)
+            .param("date", "2017/01/10")
+            .param("description", description))
+            .andExpect(status().is3xxRedirection());
+    }
+
+}
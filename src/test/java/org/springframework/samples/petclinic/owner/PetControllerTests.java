@@ -1,6 +1,12 @@
 package org.springframework.samples.petclinic.owner;
 
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -16,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
 import org.springframework.samples.petclinic.owner.Pet;
@@ -57,7 +64,8 @@ public class PetControllerTests {
         cat.setId(3);
         cat.setName("hamster");
         given(this.pets.findPetTypes()).willReturn(Lists.newArrayList(cat));
-        given(this.owners.findById(TEST_OWNER_ID)).willReturn(new Owner());
+        given(this.pets.findCurrentPetTypes()).willReturn(Lists.newArrayList(cat));
+        given(this.owners.getOne(TEST_OWNER_ID)).willReturn(new Owner());
         given(this.pets.findById(TEST_PET_ID)).willReturn(new Pet());
 
     }
@@ -81,6 +89,20 @@ public class PetControllerTests {
             .andExpect(view().name("redirect:/owners/{ownerId}"));
     }
 
+    @Test
+    public void testProcessCreationFormDuplicateName() throws Exception {
+        given(this.pets.existsByOwnerIdAndNameIgnoreCase(TEST_OWNER_ID, "Betty")).willReturn(true);
+        mockMvc.perform(post("/owners/{ownerId}/pets/new", TEST_OWNER_ID)
+            .param("name", "Betty")
+            .param("type", "hamster")
+            .param("birthDate", "2015/02/12")
+        )
+            .andExpect(model().attributeHasFieldErrorCode("pet", "name", "duplicate"))
+            .andExpect(status().isOk())
+            .andExpect(view().name("pets/createOrUpdatePetForm"));
+        verify(this.pets, never()).save(any(Pet.class));
+    }
+
     @Test
     public void testProcessCreationFormHasErrors() throws Exception {
         mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, TEST_PET_ID)
@@ -107,11 +129,32 @@ public class PetControllerTests {
             .param("name", "Betty")
             .param("type", "hamster")
             .param("birthDate", "2015/02/12")
+            .param("version", "0")
         )
             .andExpect(status().is3xxRedirection())
             .andExpect(view().name("redirect:/owners/{ownerId}"));
     }
 
+    @Test
+    public void testProcessUpdateFormConflict() throws Exception {
+        Pet current = new Pet();
+        current.setVersion(5);
+        given(this.pets.findById(TEST_PET_ID)).willReturn(current);
+        willThrow(new ObjectOptimisticLockingFailureException(Pet.class, TEST_PET_ID))
+            .given(this.pets).save(any(Pet.class));
+        mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, TEST_PET_ID)
+            .param("id", String.valueOf(TEST_PET_ID))
+            .param("name", "Betty")
+            .param("type", "hamster")
+            .param("birthDate", "2015/02/12")
+            .param("version", "4")
+        )
+            .andExpect(status().isConflict())
+            .andExpect(model().attributeHasErrors("pet"))
+            .andExpect(model().attribute("pet", hasProperty("version", is(5))))
+            .andExpect(view().name("pets/createOrUpdatePetForm"));
+    }
+
     @Test
     public void testProcessUpdateFormHasErrors() throws Exception {
         mockMvc.perform(post("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, TEST_PET_ID)
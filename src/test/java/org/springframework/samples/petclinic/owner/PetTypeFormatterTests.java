@@ -46,17 +46,61 @@ public class PetTypeFormatterTests {
 
     @Test
     public void shouldParse() throws ParseException {
-        Mockito.when(this.pets.findPetTypes()).thenReturn(makePetTypes());
+        Mockito.when(this.pets.findCurrentPetTypes()).thenReturn(makePetTypes());
         PetType petType = petTypeFormatter.parse("Bird", Locale.ENGLISH);
         assertEquals("Bird", petType.getName());
     }
 
     @Test(expected = ParseException.class)
     public void shouldThrowParseException() throws ParseException {
-        Mockito.when(this.pets.findPetTypes()).thenReturn(makePetTypes());
+        Mockito.when(this.pets.findCurrentPetTypes()).thenReturn(makePetTypes());
         petTypeFormatter.parse("Fish", Locale.ENGLISH);
     }
 
+    @Test
+    public void shouldLoadPetTypesOnlyOnce() throws ParseException {
+        Mockito.when(this.pets.findCurrentPetTypes()).thenReturn(makePetTypes());
+        petTypeFormatter.parse("Bird", Locale.ENGLISH);
+        petTypeFormatter.parse("Dog", Locale.ENGLISH);
+        Mockito.verify(this.pets, Mockito.times(1)).findCurrentPetTypes();
+    }
+
+    @Test
+    public void shouldReloadPetTypesWhenChanged() throws ParseException {
+        Mockito.when(this.pets.findCurrentPetTypes()).thenReturn(makePetTypes());
+        petTypeFormatter.parse("Bird", Locale.ENGLISH);
+
+        List<PetType> petTypes = makePetTypes();
+        petTypes.add(new PetType(){
+            {
+                setName("Fish");
+            }
+        });
+        Mockito.when(this.pets.findCurrentPetTypes()).thenReturn(petTypes);
+        petTypeFormatter.onPetTypesChanged(new PetTypesChangedEvent(this));
+        PetType petType = petTypeFormatter.parse("Fish", Locale.ENGLISH);
+        assertEquals("Fish", petType.getName());
+    }
+
+    @Test
+    public void shouldNotKeepPetTypesLoadedDuringChange() throws ParseException {
+        List<PetType> petTypes = makePetTypes();
+        petTypes.add(new PetType(){
+            {
+                setName("Fish");
+            }
+        });
+        Mockito.when(this.pets.findCurrentPetTypes()).thenAnswer(invocation -> {
+            // the change commits while the old types are being read
+            petTypeFormatter.onPetTypesChanged(new PetTypesChangedEvent(this));
+            return makePetTypes();
+        }).thenReturn(petTypes);
+        petTypeFormatter.parse("Bird", Locale.ENGLISH);
+
+        PetType petType = petTypeFormatter.parse("Fish", Locale.ENGLISH);
+        assertEquals("Fish", petType.getName());
+    }
+
     /**
      * Helper method to produce some sample pet types just for test purpose
      *
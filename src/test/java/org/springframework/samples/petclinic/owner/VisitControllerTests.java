@@ -1,6 +1,9 @@
 package org.springframework.samples.petclinic.owner;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -16,6 +19,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.owner.VisitController;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
+import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -40,6 +45,9 @@ public class VisitControllerTests {
     @MockBean
     private PetRepository pets;
 
+    @MockBean
+    private PetVisitStatsRepository visitStats;
+
     @Before
     public void init() {
         given(this.pets.findById(TEST_PET_ID)).willReturn(new Pet());
@@ -60,6 +68,8 @@ public class VisitControllerTests {
         )
             .andExpect(status().is3xxRedirection())
             .andExpect(view().name("redirect:/owners/{ownerId}"));
+        verify(this.visitStats).visitAdded(any(Visit.class));
+        verify(this.pets, never()).findById(TEST_PET_ID);
     }
 
     @Test
@@ -68,6 +78,7 @@ public class VisitControllerTests {
             .param("name", "George")
         )
             .andExpect(model().attributeHasErrors("visit"))
+            .andExpect(model().attributeExists("pet", "visits"))
             .andExpect(status().isOk())
             .andExpect(view().name("pets/createOrUpdateVisitForm"));
     }
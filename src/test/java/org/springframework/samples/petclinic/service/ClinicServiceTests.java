@@ -1,22 +1,32 @@
 package org.springframework.samples.petclinic.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.OwnerSummary;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.owner.PetType;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
+import org.springframework.samples.petclinic.visit.PetVisitStats;
+import org.springframework.samples.petclinic.visit.PetVisitStatsRepository;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Service;
@@ -60,6 +70,12 @@ public class ClinicServiceTests {
     @Autowired
     protected VetRepository vets;
 
+    @Autowired
+    protected PetVisitStatsRepository petVisitStats;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     public void shouldFindOwnersByLastName() {
         Collection<Owner> owners = this.owners.findByLastName("Davis");
@@ -69,6 +85,46 @@ public class ClinicServiceTests {
         assertThat(owners.isEmpty()).isTrue();
     }
 
+    @Test
+    public void shouldFindOwnersByLastNameIgnoringCase() {
+        assertThat(this.owners.findByLastName("dAVIS")).hasSize(2);
+        assertThat(this.owners.findByLastName("davis", "", 0, new PageRequest(0, 10))).hasSize(2);
+        assertThat(this.owners.findByLastName("%")).isEmpty();
+        assertThat(this.owners.findByLastName("D_vis")).isEmpty();
+    }
+
+    @Test
+    public void shouldFindOwnersByLastNameOnePageAtATime() {
+        List<Owner> page = this.owners.findByLastName("Davis", "", 0, new PageRequest(0, 1));
+        assertThat(page).hasSize(1);
+        Owner first = page.get(0);
+
+        page = this.owners.findByLastName("Davis", first.getLastName(), first.getId(), new PageRequest(0, 1));
+        assertThat(page).hasSize(1);
+        Owner second = page.get(0);
+        assertThat(second.getId()).isGreaterThan(first.getId());
+
+        page = this.owners.findByLastName("Davis", second.getLastName(), second.getId(), new PageRequest(0, 1));
+        assertThat(page).isEmpty();
+    }
+
+    @Test
+    public void shouldFindOwnerSummariesWithPetNamesOnePageAtATime() {
+        List<OwnerSummary> page = this.owners.findSummariesByLastName("", "", 0, new PageRequest(0, 9));
+        assertThat(page).hasSize(9);
+        assertThat(page).extracting(OwnerSummary::getLastName).isSorted();
+        OwnerSummary last = page.get(8);
+
+        page = this.owners.findSummariesByLastName("", last.getLastName(), last.getId(), new PageRequest(0, 9));
+        assertThat(page).hasSize(1);
+        OwnerSummary coleman = this.owners.findSummariesByLastName("coleman", "", 0, new PageRequest(0, 9)).get(0);
+        assertThat(coleman.getFirstName()).isEqualTo("Jean");
+        assertThat(coleman.getAddress()).isEqualTo("105 N. Lake St.");
+        assertThat(coleman.getPetNames()).containsExactly("Max", "Samantha");
+        assertThat(coleman.getVisitCount()).isEqualTo(4);
+        assertThat(coleman.getLastVisitDate()).isEqualTo("2013-01-04");
+    }
+
     @Test
     public void shouldFindSingleOwnerWithPet() {
         Owner owner = this.owners.findById(1);
@@ -97,6 +153,35 @@ public class ClinicServiceTests {
         assertThat(owners.size()).isEqualTo(found + 1);
     }
 
+    @Test
+    public void shouldInsertOwnerWithPetsInOneBatchPerTable() {
+        Collection<PetType> types = this.pets.findPetTypes();
+        Owner owner = new Owner();
+        owner.setFirstName("Sam");
+        owner.setLastName("Schultz");
+        owner.setAddress("4, Evans Street");
+        owner.setCity("Wollongong");
+        owner.setTelephone("4444444444");
+        for (String name : new String[]{"Rex", "Tom", "Kiki"}) {
+            Pet pet = new Pet();
+            pet.setName(name);
+            pet.setType(EntityUtils.getById(types, PetType.class, 2));
+            pet.setBirthDate(new Date());
+            owner.addPet(pet);
+        }
+        Statistics statistics = this.entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        this.owners.save(owner);
+        this.entityManager.flush();
+
+        assertThat(owner.getPets()).extracting(Pet::getId).doesNotContainNull();
+        // the ids come from blocks allocated beforehand: one INSERT batch for the owner, one for its pets
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(4);
+    }
+
     @Test
     @Transactional
     public void shouldUpdateOwner() {
@@ -112,6 +197,28 @@ public class ClinicServiceTests {
         assertThat(owner.getLastName()).isEqualTo(newLastName);
     }
 
+    @Test
+    @Transactional
+    public void shouldRejectUpdateOfStaleOwner() {
+        Owner owner = this.owners.findById(1);
+        Integer readVersion = owner.getVersion();
+        owner.setCity("Sun Prairie");
+        this.owners.save(owner);
+        this.entityManager.flush();
+        assertThat(owner.getVersion()).isEqualTo(readVersion + 1);
+
+        // the same owner, as edited in a form shown before the update above
+        Owner stale = new Owner();
+        stale.setId(1);
+        stale.setVersion(readVersion);
+        stale.setFirstName(owner.getFirstName());
+        stale.setLastName(owner.getLastName());
+        stale.setAddress(owner.getAddress());
+        stale.setCity("Monona");
+        stale.setTelephone(owner.getTelephone());
+        assertThatThrownBy(() -> this.owners.save(stale)).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
     @Test
     public void shouldFindPetWithCorrectId() {
         Pet pet7 = this.pets.findById(7);
@@ -203,4 +310,45 @@ public class ClinicServiceTests {
         assertThat(visitArr[0].getPetId()).isEqualTo(7);
     }
 
+    @Test
+    public void shouldCountVisitsInPetVisitStats() throws Exception {
+        PetVisitStats stats = this.petVisitStats.findByPetId(7);
+        assertThat(stats.getVisitCount()).isEqualTo(2);
+        assertThat(stats.getLastVisitDate()).isEqualTo("2013-01-04");
+
+        Visit visit = new Visit();
+        visit.setPetId(7);
+        visit.setDescription("test");
+        this.visits.save(visit);
+        this.petVisitStats.visitAdded(visit);
+        this.entityManager.clear();
+
+        stats = this.petVisitStats.findByPetId(7);
+        assertThat(stats.getVisitCount()).isEqualTo(3);
+        assertThat(stats.getLastVisitDate()).isInSameDayAs(new Date());
+
+        // the first visit of a pet adds its statistics
+        visit = new Visit();
+        visit.setPetId(1);
+        visit.setDescription("test");
+        this.visits.save(visit);
+        this.petVisitStats.visitAdded(visit);
+        assertThat(this.petVisitStats.findByPetId(1).getVisitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRebuildPetVisitStatsFromVisits() throws Exception {
+        Visit visit = new Visit();
+        visit.setPetId(7);
+        visit.setDescription("not counted");
+        this.visits.save(visit);
+
+        this.petVisitStats.rebuild();
+        this.entityManager.clear();
+
+        assertThat(this.petVisitStats.findByPetId(7).getVisitCount()).isEqualTo(3);
+        assertThat(this.petVisitStats.findByPetId(8).getVisitCount()).isEqualTo(2);
+        assertThat(this.petVisitStats.findByPetId(1)).isNull();
+    }
+
 }
@@ -0,0 +1,69 @@
+package org.springframework.samples.petclinic.system;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.util.concurrent.Semaphore;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+/**
+ * With {@code petclinic.async.enabled} the controller methods of the application run
+ * asynchronously, while framework endpoints such as the actuator stay synchronous.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "petclinic.async.enabled=true")
+@AutoConfigureMockMvc
+public class AsyncExecutionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Test
+    public void testControllerMethodRunsAsynchronously() throws Exception {
+        MvcResult result = mockMvc.perform(get("/owners/{ownerId}", 1))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(view().name("owners/ownerDetails"));
+
+        mockMvc.perform(get("/manage/metrics"))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$['timer.request.GET.owners.ownerId.count']").value(greaterThanOrEqualTo(1)))
+            .andExpect(jsonPath("$['histogram.request.GET.owners.ownerId.sql.snapshot.max']").value(greaterThanOrEqualTo(1)));
+    }
+
+    @Test
+    public void testRequestIsRejectedWhileAllSlotsAreTaken() throws Exception {
+        Semaphore pending = (Semaphore) ReflectionTestUtils.getField(handlerAdapter, "pending");
+        int slots = pending.drainPermits();
+        try {
+            mockMvc.perform(get("/owners/{ownerId}", 1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isServiceUnavailable());
+        } finally {
+            pending.release(slots);
+        }
+    }
+
+}
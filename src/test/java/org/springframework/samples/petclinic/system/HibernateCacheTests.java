@@ -0,0 +1,94 @@
+package org.springframework.samples.petclinic.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Reference data is served from the Hibernate second-level and query caches, without SQL, and
+ * the region statistics are published as metrics.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class HibernateCacheTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PetRepository pets;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private HibernateCacheMetrics cacheMetrics;
+
+    @Test
+    public void testVetServedFromSecondLevelCache() throws Exception {
+        read(entityManager -> entityManager.find(Vet.class, 2).getSpecialties());
+
+        long statements = SqlStatementCounter.current();
+        List<Specialty> specialties = read(entityManager -> entityManager.find(Vet.class, 2).getSpecialties());
+
+        assertThat(SqlStatementCounter.current()).isEqualTo(statements);
+        assertThat(specialties).extracting(Specialty::getName).containsExactly("radiology");
+        assertThat(metric("hibernate.cache.vet.Vet.hit")).isGreaterThan(0);
+        assertThat(metric("hibernate.cache.vet.Vet.specialties.hit")).isGreaterThan(0);
+        assertThat(metric("hibernate.cache.vet.Specialty.hit")).isGreaterThan(0);
+    }
+
+    @Test
+    public void testPetTypesServedFromQueryCache() throws Exception {
+        // get past the petTypes cache in front of the query cache
+        this.cacheManager.getCache("petTypes").clear();
+        this.pets.findPetTypes();
+        this.cacheManager.getCache("petTypes").clear();
+
+        long statements = SqlStatementCounter.current();
+        List<PetType> petTypes = this.pets.findPetTypes();
+
+        assertThat(SqlStatementCounter.current()).isEqualTo(statements);
+        assertThat(petTypes).extracting(PetType::getName).startsWith("bird", "cat", "dog");
+        assertThat(metric("hibernate.query-cache.hit")).isGreaterThan(0);
+        assertThat(metric("hibernate.cache.owner.PetType.hit")).isGreaterThan(0);
+    }
+
+    private <T> T read(Function<EntityManager, T> work) {
+        EntityManager entityManager = this.entityManagerFactory.createEntityManager();
+        try {
+            T result = work.apply(entityManager);
+            // initialize lazy state while the entity manager is still open
+            result.toString();
+            return result;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private long metric(String name) {
+        return this.cacheMetrics.metrics().stream()
+            .filter(metric -> metric.getName().equals(name))
+            .map(Metric::getValue)
+            .mapToLong(Number::longValue)
+            .findFirst()
+            .orElse(-1);
+    }
+
+}
@@ -0,0 +1,49 @@
+package org.springframework.samples.petclinic.system;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Request, repository, cache, second-level cache and connection pool metrics show up under {@code /manage/metrics}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testRequestAndRepositoryMetrics() throws Exception {
+        mockMvc.perform(get("/owners/{ownerId}", 1)).andExpect(status().isOk());
+        mockMvc.perform(get("/owners/{ownerId}/edit", 1)).andExpect(status().isOk());
+        mockMvc.perform(get("/owners/{ownerId}/edit", 1)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/manage/metrics"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$['timer.request.GET.owners.ownerId.count']").value(greaterThanOrEqualTo(1)))
+            .andExpect(jsonPath("$['timer.request.GET.owners.ownerId.snapshot.95thPercentile']").exists())
+            .andExpect(jsonPath("$['timer.request.GET.owners.ownerId.snapshot.99thPercentile']").exists())
+            .andExpect(jsonPath("$['histogram.request.GET.owners.ownerId.sql.snapshot.max']").value(greaterThanOrEqualTo(1)))
+            .andExpect(jsonPath("$['timer.repository.OwnerRepository.findWithVisitsById.snapshot.median']").exists())
+            .andExpect(jsonPath("$['timer.repository.OwnerRepository.findById.count']").value(greaterThanOrEqualTo(2)))
+            .andExpect(jsonPath("$['cache.owners.hit.ratio']").exists())
+            .andExpect(jsonPath("$['cache.fragments.miss.ratio']").exists())
+            .andExpect(jsonPath("$['hibernate.cache.owner.Owner.hit']").exists())
+            .andExpect(jsonPath("$['datasource.primary.waiting']").value(0))
+            .andExpect(jsonPath("$['datasource.primary.max']").value(20))
+            .andExpect(jsonPath("$['datasource.primary.borrowed']").value(greaterThanOrEqualTo(1)));
+    }
+
+}
@@ -4,10 +4,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.CachePublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest
 public class ProductionConfigurationTests {
@@ -15,9 +24,46 @@ public class ProductionConfigurationTests {
     @Autowired
     private VetRepository vets;
 
+    @Autowired
+    private OwnerRepository owners;
+
+    @Autowired
+    private PetRepository pets;
+
+    @Autowired
+    private CachePublicMetrics cacheMetrics;
+
     @Test
     public void testFindAll() throws Exception {
         vets.findAll();
         vets.findAll(); // served from cache
     }
+
+    @Test
+    public void testPetTypesServedFromCache() throws Exception {
+        pets.findPetTypes();
+        pets.findPetTypes(); // served from cache
+        assertThat(cacheMetrics.metrics()).extracting(Metric::getName).contains("cache.petTypes.hit.ratio");
+    }
+
+    @Test
+    public void testOwnerEvictedOnSave() throws Exception {
+        Owner owner = owners.findById(1);
+        String oldTelephone = owner.getTelephone();
+        owner.setTelephone("6085550000");
+        assertThat(owners.findById(1).getTelephone()).isEqualTo(oldTelephone); // cached copy is not shared
+
+        owners.save(owner);
+        assertThat(owners.findById(1).getTelephone()).isEqualTo("6085550000");
+
+        // the first copy has a stale version now
+        Owner stale = owner;
+        stale.setTelephone(oldTelephone);
+        assertThatThrownBy(() -> owners.save(stale)).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        owner = owners.findById(1);
+        owner.setTelephone(oldTelephone);
+        owners.save(owner);
+        assertThat(owners.findById(1).getTelephone()).isEqualTo(oldTelephone);
+    }
 }
@@ -0,0 +1,55 @@
+package org.springframework.samples.petclinic.system;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Saving an owner or one of its pets gives the owner page a new ETag.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ResourceVersionsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OwnerRepository owners;
+
+    @Autowired
+    private PetRepository pets;
+
+    @Test
+    public void testSavingOwnerOrPetChangesOwnerVersion() throws Exception {
+        String etag = etagOfOwner(1);
+        mockMvc.perform(get("/owners/{ownerId}", 1).header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+
+        owners.save(owners.findById(1));
+        mockMvc.perform(get("/owners/{ownerId}", 1).header("If-None-Match", etag))
+            .andExpect(status().isOk());
+
+        etag = etagOfOwner(1);
+        pets.save(pets.findById(1));
+        mockMvc.perform(get("/owners/{ownerId}", 1).header("If-None-Match", etag))
+            .andExpect(status().isOk());
+    }
+
+    private String etagOfOwner(int ownerId) throws Exception {
+        return mockMvc.perform(get("/owners/{ownerId}", ownerId))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+    }
+
+}
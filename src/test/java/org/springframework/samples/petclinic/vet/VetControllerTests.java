@@ -1,14 +1,29 @@
 package org.springframework.samples.petclinic.vet;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.hamcrest.xml.HasXPath.hasXPath;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
 import org.assertj.core.util.Lists;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,7 +31,11 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.FragmentCache;
+import org.springframework.samples.petclinic.system.ResourceVersions;
 import org.springframework.samples.petclinic.vet.Specialty;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetController;
@@ -24,17 +43,23 @@ import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Test class for the {@link VetController}
  */
 @RunWith(SpringRunner.class)
 @WebMvcTest(VetController.class)
+@Import({ ResourceVersions.class, VetsPayloads.class, FragmentCache.class })
 public class VetControllerTests {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ResourceVersions versions;
+
     @MockBean
     private VetRepository vets;
 
@@ -53,16 +78,42 @@ public class VetControllerTests {
         radiology.setName("radiology");
         helen.addSpecialty(radiology);
         given(this.vets.findAll()).willReturn(Lists.newArrayList(james, helen));
+        given(this.vets.findPage(eq(""), eq(0), any(Pageable.class))).willReturn(Lists.newArrayList(james, helen));
+        // serialize the vets of this test rather than reuse the payload of the previous one
+        versions.allChanged();
     }
 
     @Test
     public void testShowVetListHtml() throws Exception {
         mockMvc.perform(get("/vets.html"))
             .andExpect(status().isOk())
-            .andExpect(model().attributeExists("vets"))
+            .andExpect(model().attribute("vetList", containsString("<td>Helen Leary</td>")))
+            .andExpect(model().attribute("vetList", containsString("radiology")))
+            .andExpect(model().attribute("vetList", not(containsString("afterId="))))
+            .andExpect(content().string(containsString("<td>James Carter</td>")))
             .andExpect(view().name("vets/vetList"));
     }
 
+    @Test
+    public void testShowVetListHtmlFirstOfSeveralPages() throws Exception {
+        List<Vet> carters = new ArrayList<>();
+        for (int id = 1; id <= 21; id++) {
+            Vet carter = new Vet();
+            carter.setFirstName("James");
+            carter.setLastName("Carter");
+            carter.setId(id);
+            carters.add(carter);
+        }
+        given(this.vets.findPage(eq("Carter"), eq(100), any(Pageable.class))).willReturn(carters);
+        String vetList = (String) mockMvc.perform(get("/vets.html").param("afterLastName", "Carter").param("afterId", "100"))
+            .andExpect(status().isOk())
+            .andExpect(model().attribute("vetList",
+                containsString("href=\"vets.html?afterLastName=Carter&amp;afterId=20\"")))
+            .andExpect(view().name("vets/vetList"))
+            .andReturn().getModelAndView().getModel().get("vetList");
+        assertThat(StringUtils.countOccurrencesOf(vetList, "<td>James Carter</td>")).isEqualTo(20);
+    }
+
     @Test
     public void testShowResourcesVetList() throws Exception {
         ResultActions actions = mockMvc.perform(get("/vets.json").accept(MediaType.APPLICATION_JSON))
@@ -79,4 +130,68 @@ public class VetControllerTests {
             .andExpect(content().node(hasXPath("/vets/vetList[id=1]/id")));
     }
 
+    @Test
+    public void testShowResourcesVetListGzipped() throws Exception {
+        byte[] gzipped = mockMvc.perform(get("/vets.json").header("Accept-Encoding", "deflate, gzip"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json;charset=UTF-8"))
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andExpect(header().string("Vary", "Accept-Encoding"))
+            .andReturn().getResponse().getContentAsByteArray();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(StreamUtils.copyToString(in, StandardCharsets.UTF_8)).contains("\"lastName\":\"Leary\"");
+        }
+
+        mockMvc.perform(get("/vets.json").header("Accept-Encoding", "gzip;q=0"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Content-Encoding"))
+            .andExpect(jsonPath("$.vetList[1].lastName").value("Leary"));
+    }
+
+    @Test
+    public void testShowResourcesVetListGzippedNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/vets.json").header("Accept-Encoding", "gzip"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+        String plainEtag = mockMvc.perform(get("/vets.json"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isNotEqualTo(plainEtag);
+
+        mockMvc.perform(get("/vets.json").header("Accept-Encoding", "gzip").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("Vary", "Accept-Encoding"));
+        mockMvc.perform(get("/vets.json").header("If-None-Match", etag))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testShowResourcesVetListSerializesOncePerVersion() throws Exception {
+        mockMvc.perform(get("/vets.json")).andExpect(status().isOk());
+        mockMvc.perform(get("/vets.json")).andExpect(status().isOk());
+        verify(this.vets, times(1)).findAll();
+
+        versions.allChanged();
+        mockMvc.perform(get("/vets.json")).andExpect(status().isOk());
+        verify(this.vets, times(2)).findAll();
+    }
+
+    @Test
+    public void testShowResourcesVetListNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/vets.json").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Last-Modified"))
+            .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/vets.json").accept(MediaType.APPLICATION_JSON).header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        verify(this.vets, times(1)).findAll();
+
+        // whole seconds cannot tell changes within the same second apart
+        mockMvc.perform(get("/vets.json").accept(MediaType.APPLICATION_JSON)
+            .header("If-Modified-Since", System.currentTimeMillis() + 60000))
+            .andExpect(status().isOk());
+    }
+
 }
@@ -0,0 +1,95 @@
+package org.springframework.samples.petclinic.vet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.ResourceVersions;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Guards the number of SQL statements issued per vet list, with the caches emptied first, so that
+ * the specialties of the vets are not read again one vet at a time.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class VetStatementCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        // a new version of the vets drops the serialized vet list as well
+        resourceVersions.allChanged();
+        cacheManager.getCache("vets").clear();
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testVetListReadsVetsAndSpecialtiesInOneQuery() throws Exception {
+        mockMvc.perform(get("/vets.json").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vetList.length()").value(6))
+            .andExpect(jsonPath("$.vetList[2].specialties.length()").value(2));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        mockMvc.perform(get("/vets.json").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.vetList.length()").value(6));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testVetPageReadsIdsThenVetsAndSpecialties() throws Exception {
+        mockMvc.perform(get("/vets.html"))
+            .andExpect(status().isOk())
+            .andExpect(view().name("vets/vetList"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testOnlyFirstVetPageIsRenderedOncePerVersion() throws Exception {
+        mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get("/vets.html")).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        mockMvc.perform(get("/vets.html").param("afterLastName", "Carter").param("afterId", "1"))
+            .andExpect(status().isOk());
+        statistics.clear();
+        mockMvc.perform(get("/vets.html").param("afterLastName", "Carter").param("afterId", "1"))
+            .andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+}
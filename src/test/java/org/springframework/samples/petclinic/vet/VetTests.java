@@ -40,4 +40,25 @@ public class VetTests {
         assertThat(other.getId()).isEqualTo(vet.getId());
     }
 
+    @Test
+    public void testSpecialtiesSortedByName() {
+        Vet vet = new Vet();
+        vet.addSpecialty(specialty("surgery"));
+        vet.addSpecialty(specialty("Radiology"));
+        assertThat(vet.getSpecialties()).extracting("name").containsExactly("Radiology", "surgery");
+        assertThat(vet.getSpecialties()).isSameAs(vet.getSpecialties());
+
+        vet.addSpecialty(specialty("dentistry"));
+        assertThat(vet.getSpecialties()).extracting("name").containsExactly("dentistry", "Radiology", "surgery");
+
+        Vet other = (Vet) SerializationUtils.deserialize(SerializationUtils.serialize(vet));
+        assertThat(other.getSpecialties()).extracting("name").containsExactly("dentistry", "Radiology", "surgery");
+    }
+
+    private static Specialty specialty(String name) {
+        Specialty specialty = new Specialty();
+        specialty.setName(name);
+        return specialty;
+    }
+
 }
@@ -0,0 +1,39 @@
+package org.springframework.samples.petclinic.visit;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class for {@link PetVisitStatsRepositoryImpl}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PetVisitStatsRepositoryImplTests {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void shouldCountFirstVisitRacingAnotherFirstVisit() {
+        // no statistics yet, then inserted by the other visit just before ours
+        given(jdbcTemplate.update(startsWith("UPDATE"), Matchers.<Object>anyVararg())).willReturn(0, 1);
+        given(jdbcTemplate.update(startsWith("INSERT"), Matchers.<Object>anyVararg()))
+            .willThrow(new DuplicateKeyException("pet_visit_stats"));
+
+        new PetVisitStatsRepositoryImpl(jdbcTemplate).visitsAdded(7, 1, new Date());
+
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE"), Matchers.<Object>anyVararg());
+    }
+
+}